@@ -1,5 +1,8 @@
 package com.mattfeury.saucillator.dev.android;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.mattfeury.saucillator.dev.android.R;
@@ -31,7 +34,7 @@ import android.view.View.OnTouchListener;
  * 
  * It also currently handles all the Activity necessities: menus, dialogs, etc.
  */
-public class SauceEngine extends Activity implements OnTouchListener {
+public class SauceEngine extends Activity implements OnTouchListener, AudioEngine.Listener {
     public static final String TAG = "Sauce";
 
     //defaults
@@ -79,8 +82,11 @@ public class SauceEngine extends Activity implements OnTouchListener {
       VibratorService.setup((Vibrator) getSystemService(Context.VIBRATOR_SERVICE));
       ActivityService.setup(this);
       InstrumentService.setup(getAssets());
+      WavWriter.directory = new File(InstrumentService.dataPath);
 
-      this.audioEngine = new AudioEngine(this, mutex);
+      // Render a few blocks ahead of the AudioTrack so a slow block doesn't go straight to the speaker
+      AudioSink sink = new RenderAheadSink(new AudioTrackSink(), RenderAheadSink.DEFAULT_DEPTH);
+      this.audioEngine = new AudioEngine(AudioTrackSink.getDeviceConfig(), InstrumentService.loader, sink, this, mutex);
 
       // We wait until the dac is spun up to create the param handlers since
       // they require certain DAC elements (e.g. EQ). We can't do it in the DAC thread
@@ -112,9 +118,21 @@ public class SauceEngine extends Activity implements OnTouchListener {
      * Called once, generally shortly after onCreate.
      */
     public void audioInitialized() {
+      Log.i(TAG, "Sauce ready.");
       init = true;
     }
 
+    public void audioError(final String message) {
+      Log.e(TAG, message);
+
+      // This comes from the audio thread
+      runOnUiThread(new Runnable() {
+        public void run() {
+          ActivityService.makeToast(message);
+        }
+      });
+    }
+
     protected Dialog onCreateDialog(int id){
       AlertDialog.Builder builder = new AlertDialog.Builder(this);
       switch(id) {
@@ -208,6 +226,10 @@ public class SauceEngine extends Activity implements OnTouchListener {
           if (! fingered.isDefined()) {
             fingersById.remove(id);
 
+            // Hand the voice back to the pool. It'll keep sounding until it's released or reused.
+            if (controlled instanceof FingeredOscillator)
+              audioEngine.releaseOscillator(id);
+
             if (controlled instanceof Drawable) {
               view.removeDrawable(((Drawable)controlled));
             }
@@ -228,23 +250,43 @@ public class SauceEngine extends Activity implements OnTouchListener {
     }
 
     private void handleTouchForOscillator(int id, MotionEvent event) {
-      ComplexOsc osc = audioEngine.getOrCreateOscillator(id);
+      // Only a finger that's just gone down gets a voice. One whose voice was stolen by another finger
+      // (or that slid in from outside the pad) stays quiet until it's lifted, instead of stealing one back every move.
+      if (! isGoingDown(id, event)) return;
+
+      ComplexOsc osc = audioEngine.acquireOscillator(id);
       Fingerable controlled = fingersById.get(id);
       boolean fingerDefined = controlled != null;
 
       if (osc == null || (! osc.equals(controlled) && (fingerDefined || isFingered(osc)))) return;
 
+      // If we stole this voice from another finger, that finger doesn't get to control it anymore
+      for (Integer otherId : fingersById.keySet()) {
+        Fingerable other = fingersById.get(otherId);
+        if (other instanceof FingeredOscillator && ((FingeredOscillator)other).getOscillator() == osc) {
+          fingersById.remove(otherId);
+          view.removeDrawable((FingeredOscillator)other);
+        }
+      }
+
       final int index = event.findPointerIndex(id);
       final int y = (int) event.getY(index);
       final int x = (int) event.getX(index);
 
-      FingeredOscillator fingerableOsc = new FingeredOscillator(view, osc, x, y);
+      FingeredOscillator fingerableOsc = new FingeredOscillator(view, audioEngine, osc, x, y);
       fingersById.put(id, fingerableOsc);
       view.addDrawable(fingerableOsc);
 
       fingerableOsc.handleTouch(id, event);
     }
     
+    private static boolean isGoingDown(int id, MotionEvent event) {
+      final int actionCode = event.getAction() & MotionEvent.ACTION_MASK;
+
+      return actionCode == MotionEvent.ACTION_DOWN ||
+        (actionCode == MotionEvent.ACTION_POINTER_DOWN && event.getPointerId(event.getActionIndex()) == id);
+    }
+    
     private void handleTouchForController(final int id, MotionEvent event) {
       Fingerable controlled = fingersById.get(id);
 
@@ -282,6 +324,9 @@ public class SauceEngine extends Activity implements OnTouchListener {
         case R.id.help:
           showDialog(TUTORIAL_DIALOG);
           return true;
+        case R.id.metrics:
+          toggleMetrics();
+          return true;
         case R.id.quit:
           onDestroy();
           return true;
@@ -289,6 +334,39 @@ public class SauceEngine extends Activity implements OnTouchListener {
       return false;
     }
 
+    /**
+     * First time turns render metrics on. After that, dumps them to logcat and the SD card and starts over.
+     */
+    private void toggleMetrics() {
+      if (! audioEngine.isMetricsEnabled()) {
+        audioEngine.setMetricsEnabled(true);
+        ActivityService.makeToast("Render metrics on. Play a bit, then select this again to dump them.", true);
+        return;
+      }
+
+      String report = audioEngine.getMetricsReport();
+      for (String line : report.split("\n"))
+        Log.i(TAG, line);
+
+      File file = new File(InstrumentService.dataPath + "metrics.txt");
+      try {
+        if (! InstrumentService.ensureProperDirectoryStructure())
+          throw new IOException("Unable to create " + InstrumentService.dataPath);
+
+        FileWriter writer = new FileWriter(file, false);
+        writer.write(report);
+        writer.flush();
+        writer.close();
+
+        ActivityService.makeToast("Render metrics written to logcat and " + file.getAbsolutePath(), true);
+      } catch (IOException e) {
+        e.printStackTrace();
+        ActivityService.makeToast("Render metrics written to logcat. Unable to save " + file.getAbsolutePath());
+      }
+
+      audioEngine.resetMetrics();
+    }
+
     @Override
     public void onBackPressed() {
         moveTaskToBack(true);
@@ -29,11 +29,11 @@ public class ExpEnv extends UGen {
 		marker = gain * idealMarker;
 	}
 	 
-	public synchronized boolean render(final float[] buffer) {
+	protected synchronized boolean process(final float[] input, final float[] buffer, final int offset, final int length, boolean kidsDidWork) {
 		if(!state && attenuation < 0.0001f) return false;
-		if(!renderKids(buffer)) return false;
+		if(!kidsDidWork) return false;
 		
-		for(int i = 0; i < CHUNK_SIZE; i++) {
+		for(int i = offset; i < offset + length; i++) {
 			buffer[i] *= attenuation;
 			if(!state) {
 				attenuation += (0-attenuation)*factor;
@@ -19,16 +19,16 @@ public class WtOsc extends UGen {
 	}
 	
 	public synchronized void setFreq(float freq) {
-		cyclesPerSample = freq/SAMPLE_RATE;
+		cyclesPerSample = freq/config.getSampleRate();
 	} 
 	
-	public synchronized boolean render(final float[] buffer) { // assume t is in 0.0 to 1.0
+	protected synchronized boolean process(final float[] input, final float[] buffer, final int offset, final int length, boolean kidsDidWork) { // assume t is in 0.0 to 1.0
 		
 		if(! isPlaying()) {
 			return true;
 		}
 		
-		for(int i = 0; i < CHUNK_SIZE; i++) {
+		for(int i = offset; i < offset + length; i++) {
 			float scaled = phase*ENTRIES;
 			final float fraction = scaled-(int)scaled;
 			final int index = (int)scaled;
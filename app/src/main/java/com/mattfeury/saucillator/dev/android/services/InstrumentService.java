@@ -30,6 +30,16 @@ public class InstrumentService {
   private static AssetManager manager = null;
   private static boolean canService = false;
 
+  // For handing to the engine, which doesn't know (or care) where instruments live
+  public static final InstrumentLoader loader = new InstrumentLoader() {
+    public ComplexOsc getInstrument(String name) {
+      return InstrumentService.getInstrument(name);
+    }
+    public ComplexOsc copyInstrument(ComplexOsc osc) {
+      return InstrumentService.copyInstrument(osc);
+    }
+  };
+
   public static void setup(AssetManager man) {
     manager = man;
 
@@ -42,7 +52,7 @@ public class InstrumentService {
     return file.substring(0, extensionIndex);
   }
 
-  private static final String[] preferredOrder = new String[]{"Starslide", "Theremin", "Electric Eel", "Singing Saw", "Sine", "Square", "Saw", "Pulse", "Noise"};
+  private static final String[] preferredOrder = new String[]{"Starslide", "Theremin", "Electric Eel", "Singing Saw", "Sine", "Square", "Saw", "Pulse", "Triangle", "Analog Saw", "Analog Square", "Analog Pulse", "Noise", "Pink Noise", "Brown Noise"};
 
   public static boolean ensureProperDirectoryStructure() {
     File file;
@@ -187,6 +197,7 @@ public class InstrumentService {
         validHarmonics = numHarmonics;
 
     float totalAmp = 0;
+    ArrayList<Oscillator> components = new ArrayList<Oscillator>(numHarmonics);
     for (int i = 0; i < numHarmonics; i++) {
       JSONObject timbre = timbres.getJSONObject(i);
       String timbreId = timbre.optString("id", "sine");
@@ -204,7 +215,7 @@ public class InstrumentService {
         osc.setHarmonic(harmonic);
         osc.setAmplitude(amplitude);
 
-        instrument.fill(osc);
+        components.add(osc);
       } catch (Exception e) {
         validHarmonics--;
       }
@@ -215,11 +226,13 @@ public class InstrumentService {
 
     // scale amplitude values so that they sum to MAX_AMPLITUDE.
     float factor = ComplexOsc.MAX_AMPLITUDE / totalAmp;
-    for (int i = 0; i < validHarmonics; i++) {
-      Oscillator osc = instrument.getComponent(i);
+    for (Oscillator osc : components) {
       osc.factorAmplitude(factor);
     }
 
+    // All at once, so the timbre is only flattened with its final amplitudes
+    instrument.fill(components.toArray(new Oscillator[components.size()]));
+
     // Lookup and modify FX
     try {
       JSONObject fx = json.getJSONObject("fx");
@@ -235,9 +248,11 @@ public class InstrumentService {
         JSONObject lfo = fx.getJSONObject("lfo");
         final int rate = lfo.optInt("rate", 0);
         final int depth = lfo.optInt("depth", 0);
+        final int shape = lfo.optInt("shape", Modulation.SINE);
 
         instrument.setModRate(rate);
         instrument.setModDepth(depth);
+        instrument.setModShape(shape);
       } catch (Exception e) {}
 
       // Delay
@@ -254,9 +269,13 @@ public class InstrumentService {
       try {
         JSONObject envelope = fx.getJSONObject("envelope");
         final float  attack = (float)envelope.optDouble("attack", 0.5),
+                     decay = (float)envelope.optDouble("decay", 0),
+                     sustain = (float)envelope.optDouble("sustain", 1),
                      release = (float)envelope.optDouble("release", 0.5);
 
         instrument.setAttack(attack);
+        instrument.setDecay(decay);
+        instrument.setSustain(sustain);
         instrument.setRelease(release);
       } catch (Exception e) {}
 
@@ -274,8 +293,20 @@ public class InstrumentService {
       return new Square();
     else if ("Noise".equals(id))
       return new Noise();
+    else if ("Pink Noise".equals(id))
+      return new PinkNoise();
+    else if ("Brown Noise".equals(id))
+      return new BrownNoise();
     else if ("Pulse".equals(id))
       return new Pulse();
+    else if ("Analog Saw".equals(id))
+      return new BlepSaw();
+    else if ("Analog Square".equals(id))
+      return new BlepSquare();
+    else if ("Analog Pulse".equals(id))
+      return new BlepPulse();
+    else if ("Triangle".equals(id))
+      return new BlepTriangle();
     else {
       ComplexOsc osc = getInstrument(id);
       return (osc != null) ? osc.resetEffects() : null;
@@ -384,6 +415,7 @@ public class InstrumentService {
     
     lfo.put("rate", rate);
     lfo.put("depth", depth);
+    lfo.put("shape", osc.getModShape());
     fx.put("lfo", lfo);
 
     // Delay
@@ -398,9 +430,13 @@ public class InstrumentService {
     // Envelope
     JSONObject envelope = new JSONObject();
     final double attack = osc.getAttack(),
+                 envelopeDecay = osc.getDecay(),
+                 sustain = osc.getSustain(),
                  release = osc.getRelease();
     
     envelope.put("attack", attack);
+    envelope.put("decay", envelopeDecay);
+    envelope.put("sustain", sustain);
     envelope.put("release", release);
     fx.put("envelope", envelope);
 
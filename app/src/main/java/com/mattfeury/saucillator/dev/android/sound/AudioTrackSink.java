@@ -0,0 +1,92 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+
+/**
+ * Plays samples through an AudioTrack. This is what the app uses.
+ *
+ * write() blocks once the track's buffer is full, which keeps the audio thread at real time.
+ */
+public class AudioTrackSink implements AudioSink {
+  private AudioTrack track;
+  private int minSize, added;
+  private boolean started = false;
+
+  /**
+   * A block size for this device. Smaller blocks cut latency but cost more per sample,
+   * so we go by how many cores there are to spare: low latency on flagships, bigger blocks on budget phones.
+   * The sample rate stays at the default either way since that's what the DSP cost scales with.
+   */
+  public static AudioConfig getDeviceConfig() {
+    final int cores = Runtime.getRuntime().availableProcessors();
+    if (cores >= 4)
+      return new AudioConfig(AudioConfig.DEFAULT_SAMPLE_RATE, 128);
+    else if (cores <= 1)
+      return new AudioConfig(AudioConfig.DEFAULT_SAMPLE_RATE, 512);
+
+    return AudioConfig.DEFAULT;
+  }
+
+  public void open(AudioConfig config) {
+    final int sampleRate = config.getSampleRate();
+    minSize = AudioTrack.getMinBufferSize(
+        sampleRate,
+        AudioFormat.CHANNEL_CONFIGURATION_MONO,
+        AudioFormat.ENCODING_PCM_16BIT);
+
+    track = new AudioTrack(
+        AudioManager.STREAM_MUSIC,
+        sampleRate,
+        AudioFormat.CHANNEL_CONFIGURATION_MONO,
+        AudioFormat.ENCODING_PCM_16BIT,
+        Math.max(config.getBlockSize()*4, minSize),
+        AudioTrack.MODE_STREAM);
+  }
+
+  public void write(short[] samples, int length) {
+    track.write(samples, 0, length);
+
+    // Don't start playing until there's enough queued up to keep it fed
+    added += length;
+    if (! started && added > minSize) {
+      track.play();
+      started = true;
+    }
+  }
+
+  // AudioTrack only started counting in API 24
+  public int getUnderrunCount() {
+    if (track == null || Build.VERSION.SDK_INT < 24)
+      return -1;
+
+    return track.getUnderrunCount();
+  }
+
+  // Stop pulling from the track so the output can go to standby while we're idle.
+  // Whatever's still in its buffer is kept and played on resume.
+  public void pause() {
+    if (track != null && started)
+      track.pause();
+  }
+
+  public void resume() {
+    if (track != null && started)
+      track.play();
+  }
+
+  public void setPan(float l, float r) {
+    track.setStereoVolume(l, r);
+  }
+
+  public void close() {
+    if (track == null)
+      return;
+
+    track.stop();
+    track.release();
+    track = null;
+  }
+}
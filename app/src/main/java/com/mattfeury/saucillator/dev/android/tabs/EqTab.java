@@ -41,7 +41,7 @@ public class EqTab extends Tab {
           public void handle(final Float progress) {
             int frequency = (int) Utilities.scale(progress, ParametricEQ.minFreq, ParametricEQ.maxFreq);
             eqPanel.setFrequency(frequency);
-            eq.setFrequency(frequency);
+            engine.updateEq(ParametricEQ.FREQUENCY, frequency);
           }
         })
         .withClear(true)
@@ -55,7 +55,7 @@ public class EqTab extends Tab {
           public void handle(final Float progress) {
             float gain = Utilities.scale(progress, ParametricEQ.minGain, ParametricEQ.maxGain);
             eqPanel.setGain(gain);
-            eq.setGain(gain);
+            engine.updateEq(ParametricEQ.GAIN, gain);
           }
         })
         .finish();
@@ -81,7 +81,7 @@ public class EqTab extends Tab {
           public void handle(final Float progress) {
             float q = Utilities.scale(progress, ParametricEQ.minQ, ParametricEQ.maxQ);
             eqPanel.setQ(q);
-            eq.setQ(q);
+            engine.updateEq(ParametricEQ.Q, q);
           }
         })
         .finish(),
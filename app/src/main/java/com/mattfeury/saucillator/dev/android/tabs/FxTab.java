@@ -3,7 +3,6 @@ package com.mattfeury.saucillator.dev.android.tabs;
 import com.mattfeury.saucillator.dev.android.SauceEngine;
 import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
 import com.mattfeury.saucillator.dev.android.sound.AudioEngine;
-import com.mattfeury.saucillator.dev.android.sound.OscillatorUpdater;
 import com.mattfeury.saucillator.dev.android.templates.*;
 
 public class FxTab extends Tab {
@@ -16,12 +15,7 @@ public class FxTab extends Tab {
         "LFO Rate",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                osc.setModRate(progress);
-              }
-            });
+            engine.updateOscillatorParameter(ComplexOsc.MOD_RATE, progress);
           }
         },
         AudioEngine.MOD_RATE_MIN,
@@ -33,12 +27,7 @@ public class FxTab extends Tab {
         "LFO Depth",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                osc.setModDepth(progress);
-              }
-            });
+            engine.updateOscillatorParameter(ComplexOsc.MOD_DEPTH, progress);
           }
         },
         AudioEngine.MOD_DEPTH_MIN,
@@ -51,12 +40,7 @@ public class FxTab extends Tab {
         "Delay Rate",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                osc.setDelayRate(progress);
-              }
-            });
+            engine.updateOscillatorParameter(ComplexOsc.DELAY_RATE, progress);
           }
         },
         AudioEngine.DELAY_RATE_MIN,
@@ -67,12 +51,7 @@ public class FxTab extends Tab {
         "Delay Decay",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                osc.setDelayDecay(progress / 100f);
-              }
-            });
+            engine.updateOscillatorParameter(ComplexOsc.DELAY_DECAY, progress / 100f);
           }
         },
         0,
@@ -85,13 +64,8 @@ public class FxTab extends Tab {
         "Attack",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                // Don't allow 1.0 attack or release because it would be 100% and never actually go anywhere
-                osc.setAttack(Math.min(progress / 100f, .99f));
-              }
-            });
+            // Don't allow 1.0 attack or release because it would be 100% and never actually go anywhere
+            engine.updateOscillatorParameter(ComplexOsc.ATTACK, Math.min(progress / 100f, .99f));
           }
         },
         0,
@@ -102,13 +76,8 @@ public class FxTab extends Tab {
         "Release",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                // Don't allow 1.0 attack or release because it would be 100% and never actually go anywhere
-                osc.setRelease(Math.min(progress / 100f, .99f));
-              }
-            });
+            // Don't allow 1.0 attack or release because it would be 100% and never actually go anywhere
+            engine.updateOscillatorParameter(ComplexOsc.RELEASE, Math.min(progress / 100f, .99f));
           }
         },
         0,
@@ -121,12 +90,7 @@ public class FxTab extends Tab {
         "Glide",
         new Handler<Integer>() {
           public void handle(final Integer progress) {
-            engine.updateOscillatorProperty(new OscillatorUpdater() {
-              @Override
-              public void update(ComplexOsc osc) {
-                osc.setLag(Math.min(progress / 100f, .99f));
-              }
-            });
+            engine.updateOscillatorParameter(ComplexOsc.LAG, Math.min(progress / 100f, .99f));
           }
         },
         0,
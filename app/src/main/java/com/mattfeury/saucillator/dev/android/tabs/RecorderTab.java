@@ -1,8 +1,12 @@
 package com.mattfeury.saucillator.dev.android.tabs;
 
+import java.io.File;
+
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.DialogInterface;
+import android.content.Intent;
+import android.net.Uri;
 import android.text.Editable;
 import android.widget.EditText;
 
@@ -68,8 +72,28 @@ public class RecorderTab extends Tab {
   }
 
   private boolean toggleRecording() {
-    return engine.toggleRecording();
-    // TODO move the toasty and intent stuff from AudioEngine to here
+    boolean isRecording = engine.toggleRecording();
+    if (isRecording) {
+      ActivityService.makeToast("Recording.");
+    } else {
+      File saved = WavWriter.getLastFile();
+      if (saved == null) {
+        ActivityService.makeToast("Stopped Recording. File could not be saved. I blew it.");
+      } else {
+        ActivityService.makeToast("Stopped Recording. File saved at: " + saved.getAbsolutePath(), true);
+
+        final Intent intent = new Intent(Intent.ACTION_SEND).setType("audio/*");
+        intent.putExtra(Intent.EXTRA_STREAM, Uri.fromFile(saved));
+
+        ActivityService.withActivity(new Handler<Activity>() {
+          public void handle(Activity activity) {
+            activity.startActivity(Intent.createChooser(intent, "Share to"));
+          }
+        });
+      }
+    }
+
+    return isRecording;
   }
 
   private void showFilenameDialog(final Button filenameInput) {
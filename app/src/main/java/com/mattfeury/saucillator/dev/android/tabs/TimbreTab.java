@@ -161,6 +161,7 @@ public class TimbreTab extends Tab {
             public void update(ComplexOsc osc) {
               Oscillator timbre = osc.getComponent(timbreIndex);
               timbre.setHarmonic(Utilities.scale(progress, (int)HARMONIC_MIN, (int)HARMONIC_MAX));
+              osc.timbreChanged();
             }
           });
         }
@@ -173,6 +174,7 @@ public class TimbreTab extends Tab {
             public void update(ComplexOsc osc) {
               Oscillator timbre = osc.getComponent(timbreIndex);
               timbre.setAmplitude(progress);
+              osc.timbreChanged();
             }
           });
         }
@@ -186,6 +188,7 @@ public class TimbreTab extends Tab {
             public void update(ComplexOsc osc) {
               Oscillator timbre = osc.getComponent(timbreIndex);
               timbre.setPhase(Utilities.scale(progress, (int)PHASE_MIN, (int)PHASE_MAX));
+              osc.timbreChanged();
             }
           });
         }
@@ -15,6 +15,8 @@ import com.mattfeury.saucillator.dev.android.utilities.*;
 public class FingeredOscillator extends SmartRect implements Fingerable {
   
   protected ComplexOsc osc;
+  // Changes to osc go through here so they land on the audio thread
+  protected AudioEngine engine;
   
   // We only need this to scale our x values appropriately. It kinda sucks to pass it around just for that.
   // TODO Consider an alternative.
@@ -26,13 +28,18 @@ public class FingeredOscillator extends SmartRect implements Fingerable {
   Paint color = new Paint();
   public final static int BASE_SIZE = 250;
 
-  public FingeredOscillator(final SauceView view, ComplexOsc osc, int x, int y) {
+  public FingeredOscillator(final SauceView view, AudioEngine engine, ComplexOsc osc, int x, int y) {
     super(x, y, 0, 0);
 
     this.view = view;
+    this.engine = engine;
     this.osc = osc;
   }
 
+  public ComplexOsc getOscillator() {
+    return osc;
+  }
+
   @Override
   public void draw(Canvas canvas) {
     int width = canvas.getWidth();
@@ -75,18 +82,16 @@ public class FingeredOscillator extends SmartRect implements Fingerable {
     if (Utilities.idIsDown(id, event) || actionCode == MotionEvent.ACTION_MOVE) {
       updateFingerProps(x, y, event.getSize(index), event.getPressure(index));
 
-      if(! osc.isPlaying())
-        osc.togglePlayback();
-      else if (osc.isReleasing())
-        osc.startAttack();
+      // The voice only changes once the audio thread gets to this, so don't ask it whether it's playing.
+      // A note on for a note that's already sounding does nothing.
+      engine.noteOn(osc);
 
-      osc.setFreqByOffset(AudioEngine.scale, (int)(yScaled * SauceEngine.TRACKPAD_GRID_SIZE));
-      osc.setAmplitude(xScaled);
+      engine.updateFrequency(osc, (int)(yScaled * SauceEngine.TRACKPAD_GRID_SIZE));
+      engine.updateAmplitude(osc, xScaled);
 
       return new Full<Fingerable>(this);
     } else if (Utilities.idIsUp(id, event)) {
-      if(osc.isPlaying() && ! osc.isReleasing())
-        osc.togglePlayback();
+      engine.noteOff(osc);
     }
 
     return new Empty<Fingerable>();
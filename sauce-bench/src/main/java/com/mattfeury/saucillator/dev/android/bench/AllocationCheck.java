@@ -0,0 +1,106 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.lang.management.ManagementFactory;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.Dac;
+import com.mattfeury.saucillator.dev.android.sound.Looper;
+import com.mattfeury.saucillator.dev.android.sound.NullSink;
+import com.mattfeury.saucillator.dev.android.sound.ParameterQueue;
+import com.mattfeury.saucillator.dev.android.sound.ParametricEQ;
+import com.mattfeury.saucillator.dev.android.sound.RenderMetrics;
+
+/**
+ * Makes sure the audio thread doesn't allocate once it's warmed up.
+ *
+ * Plays the same voices -> looper -> eq -> dac chain the AudioEngine builds, with every voice using its
+ * LFO, lag and delay, and notes starting and stopping through the ParameterQueue the whole time.
+ * After a warmup we count the bytes this thread allocates over thousands of blocks, once on one thread
+ * and once with voices spread over RenderWorkers. Anything more than nothing fails (exits 1).
+ * Needs a JVM that can count per thread allocations (HotSpot and friends).
+ *
+ *   ./gradlew :sauce-bench:allocationCheck
+ */
+public class AllocationCheck {
+  public static final int VOICES = 16,
+                          COMPONENTS = 3,
+                          WARMUP_BLOCKS = 20000,
+                          BLOCKS = 20000;
+
+  public static void main(String[] args) {
+    final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (! threads.isThreadAllocatedMemorySupported()) {
+      System.out.println("This JVM can't count allocations. Nothing checked.");
+      return;
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    final Dac dac = new Dac(new NullSink());
+    dac.setMetrics(new RenderMetrics(dac.getConfig()));
+    final Looper looper = new Looper();
+    final ParametricEQ eq = new ParametricEQ();
+    eq.chuck(dac);
+    looper.chuck(eq);
+
+    final ComplexOsc[] oscs = new ComplexOsc[VOICES];
+    for (int i = 0; i < VOICES; i++) {
+      // Half of them render their components one by one
+      oscs[i] = Instruments.play(Instruments.complex(COMPONENTS, i % 2 == 0), 220f * (1f + i / 8f));
+      oscs[i].setModRate(10);
+      oscs[i].setModDepth(20);
+      oscs[i].setLag(0.5f);
+      oscs[i].setDelayRate(0.1f);
+      oscs[i].chuck(looper);
+    }
+
+    dac.recompile();
+    dac.toggle();
+    dac.open();
+
+    final long serial = measure(threads, dac, oscs);
+    dac.setParallelRendering(2, 1);
+    final long parallel = measure(threads, dac, oscs);
+
+    dac.close();
+
+    System.out.println(String.format("%d blocks of %d voices at %s: %d bytes allocated on one thread, %d with workers",
+          BLOCKS, VOICES, dac.getConfig(), serial, parallel));
+    if (serial > 0 || parallel > 0) {
+      System.out.println("The audio thread allocated while rendering.");
+      System.exit(1);
+    }
+  }
+
+  private static long measure(com.sun.management.ThreadMXBean threads, Dac dac, ComplexOsc[] oscs) {
+    render(dac, oscs, WARMUP_BLOCKS);
+
+    final long threadId = Thread.currentThread().getId();
+    // What asking costs, so it isn't blamed on us
+    final long overhead = -threads.getThreadAllocatedBytes(threadId) + threads.getThreadAllocatedBytes(threadId);
+
+    final long before = threads.getThreadAllocatedBytes(threadId);
+    render(dac, oscs, BLOCKS);
+    return threads.getThreadAllocatedBytes(threadId) - before - overhead;
+  }
+
+  // Every so often one voice is released and another starts, so envelopes and events are always in flight
+  private static void render(Dac dac, ComplexOsc[] oscs, int blocks) {
+    final ParameterQueue parameters = dac.getParameters();
+    final int blockSize = dac.getConfig().getBlockSize();
+
+    for (int block = 0; block < blocks; block++) {
+      if (block % 8 == 0) {
+        final long frame = dac.getFrame() + blockSize + (block * 37) % blockSize;
+        final ComplexOsc off = oscs[(block / 8) % oscs.length],
+                         on = oscs[(block / 8 + oscs.length / 2) % oscs.length];
+
+        parameters.post(off, ComplexOsc.NOTE_OFF, 0, frame);
+        parameters.post(on, ComplexOsc.FREQUENCY, 220f + block % 440, frame);
+        parameters.post(on, ComplexOsc.NOTE_ON, 0, frame);
+      }
+
+      dac.tick();
+    }
+  }
+}
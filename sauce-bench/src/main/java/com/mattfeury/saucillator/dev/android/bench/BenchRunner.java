@@ -0,0 +1,104 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.DspKernels;
+
+/**
+ * Runs the benchmarks and puts the results in terms of our real-time budget.
+ *
+ * Every benchmark scores in ns per sample, rendering with the default AudioConfig. At its sample rate
+ * we have 1e9 / rate ns for each sample (a 256 frame block at 22kHz is about 11.6ms), so anything
+ * that costs x ns/sample can run budget / x times over in real time. For the full tick we fit a line through the voice counts
+ * to separate the fixed cost of the chain from the cost of each voice (separately for each worker count).
+ *
+ * Takes an optional regex of benchmarks to run.
+ */
+public class BenchRunner {
+  public static final double BUDGET_NS_PER_SAMPLE = 1e9 / AudioConfig.DEFAULT_SAMPLE_RATE;
+
+  public static void main(String[] args) throws RunnerException {
+    String include = (args.length > 0) ? args[0] : BenchRunner.class.getPackage().getName();
+    Options options = new OptionsBuilder()
+      .include(include)
+      .build();
+
+    Collection<RunResult> results = new Runner(options).run();
+
+    System.out.println();
+    System.out.println(String.format("Budget: %.1f ns/sample (%d samples at %d Hz = %.2f ms per block)",
+          BUDGET_NS_PER_SAMPLE, AudioConfig.DEFAULT_BLOCK_SIZE, AudioConfig.DEFAULT_SAMPLE_RATE, BUDGET_NS_PER_SAMPLE * AudioConfig.DEFAULT_BLOCK_SIZE / 1e6));
+    System.out.println("Kernels: " + DspKernels.getBackendName());
+    System.out.println(String.format("%-60s %12s %12s", "Benchmark", "ns/sample", "real-time x"));
+
+    TreeMap<Integer, ArrayList<RunResult>> ticks = new TreeMap<Integer, ArrayList<RunResult>>();
+    for (RunResult result : results) {
+      final double score = result.getPrimaryResult().getScore();
+      System.out.println(String.format("%-60s %12.2f %12.1f", getLabel(result), score, BUDGET_NS_PER_SAMPLE / score));
+
+      if (result.getParams().getBenchmark().endsWith("TickBench.tick")) {
+        final String workers = result.getParams().getParam("workers");
+        final int key = (workers != null) ? Integer.parseInt(workers) : 0;
+        if (! ticks.containsKey(key))
+          ticks.put(key, new ArrayList<RunResult>());
+        ticks.get(key).add(result);
+      }
+    }
+
+    for (Map.Entry<Integer, ArrayList<RunResult>> entry : ticks.entrySet()) {
+      if (entry.getValue().size() > 1)
+        reportMaxVoices(entry.getKey(), entry.getValue());
+    }
+  }
+
+  // Least squares fit of ns/sample against voice count
+  private static void reportMaxVoices(int workers, ArrayList<RunResult> ticks) {
+    double n = ticks.size(), sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+    for (RunResult result : ticks) {
+      final double x = Integer.parseInt(result.getParams().getParam("voices")),
+                   y = result.getPrimaryResult().getScore();
+      sumX += x;
+      sumY += y;
+      sumXX += x * x;
+      sumXY += x * y;
+    }
+
+    final double perVoice = (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX),
+                 fixed = (sumY - perVoice * sumX) / n;
+
+    System.out.println();
+    System.out.println(String.format("Full tick with %d workers: %.2f ns/sample fixed + %.2f ns/sample per voice", workers, fixed, perVoice));
+    if (perVoice > 0)
+      System.out.println(String.format("Max real-time voices: %d", (int) Math.floor((BUDGET_NS_PER_SAMPLE - fixed) / perVoice)));
+  }
+
+  private static String getLabel(RunResult result) {
+    String benchmark = result.getParams().getBenchmark();
+    StringBuilder label = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+
+    Collection<String> keys = result.getParams().getParamsKeys();
+    if (! keys.isEmpty()) {
+      label.append(" [");
+      boolean first = true;
+      for (String key : keys) {
+        if (! first)
+          label.append(", ");
+        label.append(key).append('=').append(result.getParams().getParam(key));
+        first = false;
+      }
+      label.append(']');
+    }
+
+    return label.toString();
+  }
+}
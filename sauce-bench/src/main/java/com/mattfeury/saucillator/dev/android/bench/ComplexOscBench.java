@@ -0,0 +1,52 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.Dac;
+import com.mattfeury.saucillator.dev.android.sound.NullSink;
+
+/**
+ * One ComplexOsc of 1 to 8 components rendering a block through the compiled render plan,
+ * both flattened and rendering its components one by one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(AudioConfig.DEFAULT_BLOCK_SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComplexOscBench {
+  @Param({"1", "2", "4", "8"})
+  public int components;
+
+  @Param({"true", "false"})
+  public boolean flattenable;
+
+  private ComplexOsc osc;
+  private Dac dac;
+  private final float[] buffer = new float[AudioConfig.DEFAULT_BLOCK_SIZE];
+
+  @Setup
+  public void setup() {
+    dac = new Dac(new NullSink());
+    osc = Instruments.play(Instruments.complex(components, flattenable), 440f);
+    osc.chuck(dac);
+    dac.recompile();
+  }
+
+  @TearDown
+  public void tearDown() {
+    osc.unchuck(dac);
+    osc.dispose();
+  }
+
+  @Benchmark
+  public boolean render() {
+    return dac.render(buffer);
+  }
+}
@@ -0,0 +1,93 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.Delay;
+import com.mattfeury.saucillator.dev.android.sound.Limiter;
+import com.mattfeury.saucillator.dev.android.sound.Looper;
+import com.mattfeury.saucillator.dev.android.sound.ParametricEQ;
+
+/**
+ * Each effect processing one block of a loud sine.
+ *
+ * Effects work in place, so every invocation starts by copying the source block in.
+ * That copy is part of the score (it's tiny next to any of these).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(AudioConfig.DEFAULT_BLOCK_SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EffectsBench {
+  // Long enough to define a loop with
+  private static final int LOOP_BLOCKS = AudioConfig.DEFAULT_SAMPLE_RATE / AudioConfig.DEFAULT_BLOCK_SIZE;
+
+  private final float[] source = new float[AudioConfig.DEFAULT_BLOCK_SIZE],
+                        buffer = new float[AudioConfig.DEFAULT_BLOCK_SIZE];
+
+  private Delay delay;
+  private ParametricEQ eq;
+  private Looper recordingLooper, playingLooper;
+
+  @Setup
+  public void setup() {
+    // Over 1 so the limiter has something to do
+    for (int i = 0; i < source.length; i++)
+      source[i] = 1.5f * (float) Math.sin(2.0 * Math.PI * 440.0 * i / AudioConfig.DEFAULT_SAMPLE_RATE);
+
+    delay = new Delay(AudioConfig.DEFAULT_SAMPLE_RATE / 4);
+    eq = new ParametricEQ();
+
+    playingLooper = defineLoop(new Looper());
+
+    // Overdubbing onto a defined loop. Recording the base loop grows without bound, so we don't measure that.
+    recordingLooper = defineLoop(new Looper());
+    recordingLooper.startRecording();
+  }
+
+  private Looper defineLoop(Looper looper) {
+    looper.startRecording();
+    for (int b = 0; b < LOOP_BLOCKS; b++) {
+      System.arraycopy(source, 0, buffer, 0, buffer.length);
+      looper.render(buffer);
+    }
+    looper.stopRecording();
+    return looper;
+  }
+
+  @Benchmark
+  public boolean delay() {
+    System.arraycopy(source, 0, buffer, 0, buffer.length);
+    return delay.render(buffer);
+  }
+
+  @Benchmark
+  public boolean eq() {
+    System.arraycopy(source, 0, buffer, 0, buffer.length);
+    return eq.render(buffer);
+  }
+
+  @Benchmark
+  public float[] limiter() {
+    System.arraycopy(source, 0, buffer, 0, buffer.length);
+    Limiter.limit(buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public boolean looperPlaying() {
+    System.arraycopy(source, 0, buffer, 0, buffer.length);
+    return playingLooper.render(buffer);
+  }
+
+  @Benchmark
+  public boolean looperRecording() {
+    System.arraycopy(source, 0, buffer, 0, buffer.length);
+    return recordingLooper.render(buffer);
+  }
+}
@@ -0,0 +1,110 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.Arrays;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.instruments.Oscillator;
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+
+/**
+ * Makes sure flattening a ComplexOsc only changes what it costs, not how it sounds.
+ *
+ * Each timbre is played twice, once flattened and once component by component, gliding three octaves
+ * up from each note so its band limited components work their way through their levels. The two should
+ * only differ by how finely each reads its tables. Anything further apart than TOLERANCE (of the loudest
+ * sample) fails (exits 1).
+ *
+ *   ./gradlew :sauce-bench:flattenCheck
+ */
+public class FlattenCheck {
+  public static final float TOLERANCE = 1e-3f;
+  public static final float[] FREQUENCIES = new float[]{55f, 220f, 880f};
+  public static final int BLOCKS = 400;
+
+  // Waveform, harmonic and amplitude of each component
+  private static final Object[][][] TIMBRES = new Object[][][]{
+    { {"Saw", 1, 1/3f}, {"Saw", 2, 1/3f}, {"Saw", 3, 1/3f} },
+    { {"Square", 1, .5f}, {"Square", 2, .5f} },
+    { {"Sine", 1, .5f}, {"Sine", 3, .3f} },
+    { {"Sine", 1, .4f}, {"Saw", 3, .3f}, {"Pulse", 5, .2f} },
+    { {"Square", 1, .3f}, {"Saw", 6, .3f}, {"Saw", 7, .2f} },
+  };
+
+  public static void main(String[] args) {
+    boolean failed = false;
+
+    for (Object[][] timbre : TIMBRES) {
+      for (float freq : FREQUENCIES) {
+        final float[] flat = play(timbre, freq, true),
+                      apart = play(timbre, freq, false);
+
+        float peak = 0f, difference = 0f;
+        for (int i = 0; i < flat.length; i++) {
+          peak = Math.max(peak, Math.abs(apart[i]));
+          difference = Math.max(difference, Math.abs(flat[i] - apart[i]));
+        }
+
+        final float relative = (peak > 0f) ? difference / peak : difference;
+        final boolean ok = relative <= TOLERANCE;
+        failed |= ! ok;
+        System.out.println(String.format("%s from %.0f Hz: flattened is off by %.2e of %.3f%s",
+              describe(timbre), freq, difference, peak, ok ? "" : "  <- too far"));
+      }
+    }
+
+    if (failed) {
+      System.out.println("Flattening changed how a timbre sounds.");
+      System.exit(1);
+    }
+  }
+
+  private static float[] play(Object[][] timbre, float freq, boolean flattenable) {
+    ComplexOsc osc = flattenable ? new ComplexOsc() : new ComplexOsc() {
+      @Override
+      protected boolean canFlatten() {
+        return false;
+      }
+    };
+
+    Oscillator[] oscs = new Oscillator[timbre.length];
+    for (int c = 0; c < timbre.length; c++) {
+      oscs[c] = Instruments.waveform((String) timbre[c][0]);
+      oscs[c].setHarmonic((Integer) timbre[c][1]);
+      oscs[c].setAmplitude((Float) timbre[c][2]);
+    }
+    osc.fill(oscs);
+
+    if (osc.isFlattened() != flattenable)
+      throw new IllegalStateException(describe(timbre) + " didn't flatten");
+
+    // Start right on freq, then glide up three octaves over the run
+    osc.setLag(0f);
+    osc.setFreq(freq);
+    osc.setLag(0.99f);
+    osc.setAmplitude(0.5f);
+    osc.togglePlayback();
+    osc.setFreq(freq * 8f);
+
+    final int blockSize = AudioConfig.DEFAULT.getBlockSize();
+    final float[] buffer = new float[blockSize],
+                  played = new float[blockSize * BLOCKS];
+    for (int block = 0; block < BLOCKS; block++) {
+      Arrays.fill(buffer, 0f);
+      osc.render(buffer);
+      System.arraycopy(buffer, 0, played, block * blockSize, blockSize);
+    }
+
+    osc.dispose();
+    return played;
+  }
+
+  private static String describe(Object[][] timbre) {
+    StringBuilder description = new StringBuilder();
+    for (Object[] component : timbre) {
+      if (description.length() > 0)
+        description.append(" + ");
+      description.append(component[0]).append(" x").append(component[1]);
+    }
+    return description.toString();
+  }
+}
@@ -0,0 +1,69 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import com.mattfeury.saucillator.dev.android.instruments.*;
+
+/**
+ * Builds the oscillators the benchmarks play.
+ */
+public class Instruments {
+  public static final String[] WAVEFORMS = new String[]{"Sine", "Saw", "Square", "Pulse", "Noise"};
+
+  public static BasicOsc waveform(String name) {
+    if ("Sine".equals(name))
+      return new Sine();
+    else if ("Saw".equals(name))
+      return new Saw();
+    else if ("Square".equals(name))
+      return new Square();
+    else if ("Pulse".equals(name))
+      return new Pulse();
+    else if ("Noise".equals(name))
+      return new Noise();
+    else if ("Pink Noise".equals(name))
+      return new PinkNoise();
+    else if ("Brown Noise".equals(name))
+      return new BrownNoise();
+    else if ("Analog Saw".equals(name))
+      return new BlepSaw();
+    else if ("Analog Square".equals(name))
+      return new BlepSquare();
+    else if ("Analog Pulse".equals(name))
+      return new BlepPulse();
+    else if ("Triangle".equals(name))
+      return new BlepTriangle();
+
+    throw new IllegalArgumentException("Unknown waveform " + name);
+  }
+
+  /**
+   * A ComplexOsc of this many components, cycling through the waveforms at rising harmonics.
+   * If flattenable is false, it always renders its components one by one (like SingingSaw).
+   */
+  public static ComplexOsc complex(int components, boolean flattenable) {
+    ComplexOsc osc = flattenable ? new ComplexOsc() : new ComplexOsc() {
+      @Override
+      protected boolean canFlatten() {
+        return false;
+      }
+    };
+
+    Oscillator[] oscs = new Oscillator[components];
+    for (int i = 0; i < components; i++) {
+      // Noise won't flatten, so leave it out of the mix
+      oscs[i] = waveform(WAVEFORMS[i % (WAVEFORMS.length - 1)]);
+      oscs[i].setHarmonic(i + 1);
+      oscs[i].setAmplitude(1f / components);
+    }
+    osc.fill(oscs);
+
+    return osc;
+  }
+
+  // Start a ComplexOsc playing at freq. Its attack will have finished by the time warmup does.
+  public static ComplexOsc play(ComplexOsc osc, float freq) {
+    osc.setFreq(freq);
+    osc.setAmplitude(0.8f);
+    osc.togglePlayback();
+    return osc;
+  }
+}
@@ -0,0 +1,73 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.DspKernels;
+
+/**
+ * The DspKernels on their own, one block at a time.
+ *
+ * Run it with and without -PsauceVector to compare the plain loops with the Vector API ones.
+ * Kernels that work in place start from a copy of the source, like EffectsBench.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(AudioConfig.DEFAULT_BLOCK_SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KernelsBench {
+  private static final int BLOCK = AudioConfig.DEFAULT_BLOCK_SIZE;
+
+  private final float[] source = new float[BLOCK],
+                        buffer = new float[BLOCK];
+  private final short[] pcm = new short[BLOCK];
+
+  @Setup
+  public void setup() {
+    // Over 1 in places so the PCM conversion has something to clip
+    for (int i = 0; i < BLOCK; i++)
+      source[i] = 1.5f * (float) Math.sin(2.0 * Math.PI * 440.0 * i / AudioConfig.DEFAULT_SAMPLE_RATE);
+  }
+
+  @Benchmark
+  public float[] mixAdd() {
+    DspKernels.mixAdd(buffer, source, 0, BLOCK);
+    return buffer;
+  }
+
+  @Benchmark
+  public float[] scale() {
+    System.arraycopy(source, 0, buffer, 0, BLOCK);
+    DspKernels.scale(buffer, 0, BLOCK, 0.5f);
+    return buffer;
+  }
+
+  @Benchmark
+  public float[] scaleAdd() {
+    DspKernels.scaleAdd(buffer, 0, source, 0, BLOCK, 0.5f);
+    return buffer;
+  }
+
+  @Benchmark
+  public float[] multiply() {
+    System.arraycopy(source, 0, buffer, 0, BLOCK);
+    DspKernels.multiply(buffer, source, 0, BLOCK);
+    return buffer;
+  }
+
+  @Benchmark
+  public float peak() {
+    return DspKernels.peak(source, 0, BLOCK);
+  }
+
+  @Benchmark
+  public short[] floatToPcm16() {
+    DspKernels.floatToPcm16(source, 0, pcm, 0, BLOCK);
+    return pcm;
+  }
+}
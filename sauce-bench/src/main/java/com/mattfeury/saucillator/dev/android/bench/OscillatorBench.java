@@ -0,0 +1,46 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.mattfeury.saucillator.dev.android.instruments.BasicOsc;
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+
+/**
+ * A single BasicOsc of each waveform rendering one block.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(AudioConfig.DEFAULT_BLOCK_SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OscillatorBench {
+  @Param({"Sine", "Saw", "Square", "Pulse", "Noise", "Pink Noise", "Brown Noise", "Analog Saw", "Analog Square", "Analog Pulse", "Triangle"})
+  public String waveform;
+
+  private BasicOsc osc;
+  private final float[] buffer = new float[AudioConfig.DEFAULT_BLOCK_SIZE];
+
+  @Setup
+  public void setup() {
+    osc = Instruments.waveform(waveform);
+    osc.setFreq(440f);
+    osc.setPlaying(true);
+  }
+
+  @TearDown
+  public void tearDown() {
+    osc.dispose();
+  }
+
+  @Benchmark
+  public boolean render() {
+    // Oscillators add to the buffer, so start each block clean like the render plan does
+    Arrays.fill(buffer, 0f);
+    return osc.render(buffer);
+  }
+}
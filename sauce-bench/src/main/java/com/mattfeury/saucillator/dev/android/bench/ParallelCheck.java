@@ -0,0 +1,126 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.sound.Dac;
+import com.mattfeury.saucillator.dev.android.sound.Looper;
+import com.mattfeury.saucillator.dev.android.sound.NullSink;
+import com.mattfeury.saucillator.dev.android.sound.ParameterQueue;
+import com.mattfeury.saucillator.dev.android.sound.RenderWorkers;
+import com.mattfeury.saucillator.dev.android.sound.UGen;
+
+/**
+ * Makes sure spreading voices over RenderWorkers doesn't change a single sample.
+ *
+ * Plays the same voices -> looper -> dac chain as AllocationCheck, with notes starting and stopping through
+ * the ParameterQueue (so blocks are split at events), once with everything on the calling thread and then
+ * RUNS more times with every voice handed to the workers. What reaches the looper is recorded as floats
+ * and has to match the serial run exactly. Anything else fails (exits 1).
+ *
+ *   ./gradlew :sauce-bench:parallelCheck
+ */
+public class ParallelCheck {
+  public static final int VOICES = 16,
+                          COMPONENTS = 3,
+                          BLOCKS = 2000,
+                          RUNS = 20;
+
+  public static void main(String[] args) {
+    final int threads = Math.max(2, RenderWorkers.getDefaultThreadCount());
+    final float[] serial = play(0);
+
+    int mismatched = 0;
+    for (int run = 0; run < RUNS; run++) {
+      final float[] parallel = play(threads);
+
+      int differences = 0, first = -1;
+      for (int i = 0; i < serial.length; i++) {
+        if (Float.floatToRawIntBits(serial[i]) != Float.floatToRawIntBits(parallel[i])) {
+          if (first < 0)
+            first = i;
+          differences++;
+        }
+      }
+
+      if (differences > 0) {
+        mismatched++;
+        System.out.println(String.format("Run %d: %d samples differ, the first at frame %d (%f instead of %f)",
+              run, differences, first, parallel[first], serial[first]));
+      }
+    }
+
+    System.out.println(String.format("%d runs of %d blocks of %d voices on %d workers: %d differed from serial",
+          RUNS, BLOCKS, VOICES, threads, mismatched));
+    if (mismatched > 0) {
+      System.out.println("Rendering in parallel changed the output.");
+      System.exit(1);
+    }
+  }
+
+  // Everything the voices rendered, in order
+  private static float[] play(int threads) {
+    final Dac dac = new Dac(new NullSink());
+    final int blockSize = dac.getConfig().getBlockSize();
+    final Tap tap = new Tap(blockSize * BLOCKS);
+    final Looper looper = new Looper();
+    tap.chuck(dac);
+    looper.chuck(tap);
+
+    final ComplexOsc[] oscs = new ComplexOsc[VOICES];
+    for (int i = 0; i < VOICES; i++) {
+      // Half of them render their components one by one
+      oscs[i] = Instruments.play(Instruments.complex(COMPONENTS, i % 2 == 0), 220f * (1f + i / 8f));
+      oscs[i].setSeed(i);
+      oscs[i].setModRate(10);
+      oscs[i].setModDepth(20);
+      oscs[i].setLag(0.5f);
+      oscs[i].setDelayRate(0.1f);
+      oscs[i].chuck(looper);
+    }
+
+    // Every voice that's sounding goes to the workers
+    dac.setParallelRendering(threads, 1);
+    dac.recompile();
+    dac.toggle();
+    dac.open();
+
+    // Every so often one voice is released and another starts, landing part way through a block
+    final ParameterQueue parameters = dac.getParameters();
+    for (int block = 0; block < BLOCKS; block++) {
+      if (block % 8 == 0) {
+        final long frame = dac.getFrame() + blockSize + (block * 37) % blockSize;
+        final ComplexOsc off = oscs[(block / 8) % oscs.length],
+                         on = oscs[(block / 8 + oscs.length / 2) % oscs.length];
+
+        parameters.post(off, ComplexOsc.NOTE_OFF, 0, frame);
+        parameters.post(on, ComplexOsc.FREQUENCY, 220f + block % 440, frame);
+        parameters.post(on, ComplexOsc.NOTE_ON, 0, frame);
+      }
+
+      dac.tick();
+    }
+
+    dac.close();
+    dac.setParallelRendering(0, 0);
+    for (ComplexOsc osc : oscs)
+      osc.dispose();
+
+    return tap.recorded;
+  }
+
+  // Passes its input along untouched, keeping a copy. Never quiet, so it sees every chunk.
+  private static class Tap extends UGen {
+    final float[] recorded;
+    private int position = 0;
+
+    Tap(int frames) {
+      recorded = new float[frames];
+    }
+
+    protected boolean process(final float[] input, final float[] output, final int offset, final int length, boolean kidsDidWork) {
+      System.arraycopy(output, offset, recorded, position, length);
+
+      position += length;
+      return kidsDidWork;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.mattfeury.saucillator.dev.android.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.Dac;
+import com.mattfeury.saucillator.dev.android.sound.Looper;
+import com.mattfeury.saucillator.dev.android.sound.NullSink;
+import com.mattfeury.saucillator.dev.android.sound.ParametricEQ;
+
+/**
+ * A full Dac tick (render, limit, convert to PCM, write) with N voices playing,
+ * through the same voices -> looper -> eq -> dac chain the AudioEngine builds.
+ *
+ * BenchRunner fits a line through these to estimate how many voices fit in real time.
+ * With workers, voices are spread over that many extra threads (see Dac.setParallelRendering).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(AudioConfig.DEFAULT_BLOCK_SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TickBench {
+  @Param({"1", "4", "10", "16"})
+  public int voices;
+
+  // Components per voice
+  @Param({"3"})
+  public int components;
+
+  // Extra threads to render voices on
+  @Param({"0", "3"})
+  public int workers;
+
+  private Dac dac;
+  private Looper looper;
+  private ComplexOsc[] oscs;
+
+  @Setup
+  public void setup() {
+    dac = new Dac(new NullSink());
+    looper = new Looper();
+    ParametricEQ eq = new ParametricEQ();
+    eq.chuck(dac);
+    looper.chuck(eq);
+
+    oscs = new ComplexOsc[voices];
+    for (int i = 0; i < voices; i++) {
+      // Spread them out over a couple octaves
+      oscs[i] = Instruments.play(Instruments.complex(components, true), 220f * (1f + i / 8f));
+      oscs[i].chuck(looper);
+    }
+
+    dac.recompile();
+    dac.setParallelRendering(workers, 2);
+    dac.open();
+  }
+
+  @TearDown
+  public void tearDown() {
+    dac.close();
+    for (ComplexOsc osc : oscs) {
+      osc.unchuck(looper);
+      osc.dispose();
+    }
+  }
+
+  @Benchmark
+  public void tick() {
+    dac.tick();
+  }
+}
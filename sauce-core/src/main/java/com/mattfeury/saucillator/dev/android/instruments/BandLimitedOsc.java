@@ -0,0 +1,118 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * An oscillator whose waveform has sharp edges (Saw, Square, Pulse).
+ *
+ * A naive table of one of these is full of harmonics above Nyquist, so reading it
+ * at high frequencies aliases badly. Instead we build a mipmap: one table per octave,
+ * each summed from the Fourier series with only the harmonics that fit below Nyquist
+ * at the top of that octave. Every block we read from the level matching our frequency.
+ *
+ * Like any other table, the whole set is built once and shared through WavetableCache.
+ */
+public abstract class BandLimitedOsc extends BasicOsc {
+  // Level n holds MAX_HARMONICS >> n harmonics, so the last level is a plain sine
+  public static final int MAX_HARMONICS = 1024,
+                          LEVELS = 11,
+                          LEVEL_ENTRIES = 4 * MAX_HARMONICS;
+
+  // sin(2 * PI * i / LEVEL_ENTRIES). Harmonic h at index i is just sine[(h * i) & (LEVEL_ENTRIES - 1)]
+  private static float[] levelSine;
+
+  public BandLimitedOsc(float amp) {
+    super(amp);
+  }
+  public BandLimitedOsc(int phase) {
+    super(phase);
+  }
+
+  // Fourier series of one cycle at amplitude 1 and phase 0,
+  // where the cycle starts at the beginning of the table.
+  protected abstract float getDcOffset();
+  protected abstract float getCosineCoefficient(int harmonic);
+  protected abstract float getSineCoefficient(int harmonic);
+
+  @Override
+  protected float[][] buildTables() {
+    float[][] levels = new float[LEVELS][];
+    for (int level = 0; level < LEVELS; level++) {
+      levels[level] = new float[LEVEL_ENTRIES];
+      fillHarmonics(levels[level], MAX_HARMONICS >> level);
+    }
+    return levels;
+  }
+
+  @Override
+  protected float[] getTableFor(float cyclesPerSample) {
+    // Someone drew a single table of their own into us (see fillWithZero)
+    if (tables.length == 1)
+      return tables[0];
+
+    return tables[getLevelFor(cyclesPerSample)];
+  }
+
+  // Most detailed level that won't alias at this rate
+  public static int getLevelFor(float cyclesPerSample) {
+    // Level n is alias free as long as our highest harmonic stays under half a cycle per sample
+    float limit = getLevelLimit(0);
+    int level = 0;
+    while (level < LEVELS - 1 && cyclesPerSample > limit) {
+      level++;
+      limit *= 2f;
+    }
+
+    return level;
+  }
+
+  // Highest rate (in cycles per sample) that a level is used for
+  public static float getLevelLimit(int level) {
+    return (0.5f / MAX_HARMONICS) * (1 << level);
+  }
+
+  // A single table using as many harmonics as its size can hold
+  protected void fillTable(final float[] table) {
+    fillHarmonics(table, Math.min(MAX_HARMONICS, table.length / 4));
+  }
+
+  // table must be a power of two long
+  private void fillHarmonics(final float[] table, final int harmonics) {
+    final int size = table.length,
+              mask = size - 1,
+              quarter = size / 4,
+              phaseOffset = (int)((float)(oscPhase / (float)360) * size);
+    final float[] sine = getSine(size);
+
+    final float dc = getDcOffset();
+    for (int i = 0; i < table.length; i++)
+      table[i] = dc;
+
+    for (int h = 1; h <= harmonics; h++) {
+      final float a = getCosineCoefficient(h),
+                  b = getSineCoefficient(h);
+      if (a == 0 && b == 0)
+        continue;
+
+      for (int i = 0; i < table.length; i++) {
+        final int index = h * (i + phaseOffset);
+        table[i] += a * sine[(index + quarter) & mask] + b * sine[index & mask];
+      }
+    }
+
+    for (int i = 0; i < table.length; i++)
+      table[i] *= amplitude;
+  }
+
+  private static synchronized float[] getSine(int size) {
+    if (size == LEVEL_ENTRIES && levelSine != null)
+      return levelSine;
+
+    float[] sine = new float[size];
+    for (int i = 0; i < size; i++)
+      sine[i] = (float) Math.sin(2.0 * Math.PI * i / size);
+
+    if (size == LEVEL_ENTRIES)
+      levelSine = sine;
+
+    return sine;
+  }
+}
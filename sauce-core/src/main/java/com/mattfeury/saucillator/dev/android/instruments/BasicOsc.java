@@ -0,0 +1,253 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.AudioEngine;
+
+/**
+ * I am a basic oscillator.
+ * I am represented by a simple mathematical wave form (Sine, Square, etc)
+ */
+public abstract class BasicOsc extends Oscillator {
+	public static final int BITS = 16;
+	public static final int ENTRIES = 1<<(BITS-1); //bit depth: 2^(bits-1)
+	public static final int MASK = ENTRIES-1;
+	// A whole cycle of phase
+	public static final double PHASE_CYCLE = 4294967296.0;
+	
+	// Fixed point: how far through the cycle we are, in 2^32ths of it. Overflowing wraps us round to
+	// the start exactly, so long notes never drift and oscs on the same increment stay locked together.
+	private int phase;
+	private int phaseIncrement;
+	private float cyclesPerSample;
+
+  public int modDepth = 0;
+  public int modRate = 0; //see Modulation.HZ_PER_MOD_RATE
+
+  // Our LFO and lag. Our own unless we're part of a ComplexOsc, which works out one for all of its components.
+  private final Modulation ownModulation = new Modulation();
+  private Modulation modulation = ownModulation;
+  private float preLfoFrequency = frequency * harmonic; //since LFO modifies the actual frequency variable
+
+  // Shared with every other osc that has the same key. See WavetableCache.
+  float[][] tables;
+  private String tableKey;
+
+  public BasicOsc() {
+    this(1.0f);
+  }
+  public BasicOsc(int phase) {
+    this(1.0f, phase);
+  }
+  public BasicOsc(float amp) {
+    this(amp, 0);
+  }
+  public BasicOsc(float amp, int phase) {
+    name = "BasicInstrument";
+
+    this.oscPhase = phase;
+    amplitude = amp;
+    // process only steps to a new frequency when it changes, so start out stepping at the one we have
+    updateFrequency(frequency);
+    ownModulation.setLag(AudioEngine.DEFAULT_LAG);
+    ownModulation.setTarget(preLfoFrequency);
+    fill();   
+  }
+
+  /**
+   * Swap our table for the shared one matching our current waveform, phase and amplitude.
+   */
+  public void fill() {
+    final String previousKey = tableKey;
+
+    // No key means we have nothing to render from (yet)
+    tableKey = getTableKey();
+    tables = (tableKey != null) ? WavetableCache.acquire(tableKey, this) : null;
+
+    if (previousKey != null)
+      WavetableCache.release(previousKey);
+  }
+
+  // Tables have our phase and amplitude baked in, so they're part of what makes them unique
+  protected String getTableKey() {
+    return getClass().getName() + ":" + oscPhase + ":" + amplitude;
+  }
+
+  // The key our tables were filled from: unlike getTableKey, it stays put when our amplitude or phase move
+  // until we fill again. Null if our tables are our own (see detachTable) or we have none.
+  protected String getFilledTableKey() {
+    return tableKey;
+  }
+
+  // Write one cycle of our waveform into table
+  protected abstract void fillTable(final float[] table);
+
+  // Only called when the cache doesn't have our tables yet. Most of us only need the one.
+  protected float[][] buildTables() {
+    float[] table = new float[ENTRIES];
+    fillTable(table);
+    return new float[][]{ table };
+  }
+
+  // Which of our tables to read from at this frequency
+  protected float[] getTableFor(float cyclesPerSample) {
+    return tables[0];
+  }
+
+  @Override
+  public void dispose() {
+    if (tableKey != null)
+      WavetableCache.release(tableKey);
+
+    tableKey = null;
+  }
+
+  // Trade the shared table for one we own before scribbling on it
+  private float[] detachTable() {
+    dispose();
+    tables = new float[][]{ new float[ENTRIES] };
+    return tables[0];
+  }
+
+  public void updateFrequency(float freq) {
+    frequency = freq;
+    cyclesPerSample = frequency/config.getSampleRate();
+    phaseIncrement = toPhaseIncrement(frequency, config.getSampleRate());
+  }
+
+  // Our phase (oscPhase, in degrees) as a fraction of 2^32, for anything that isn't baked into a table
+  public static int toPhaseOffset(int degrees) {
+    return (int) Math.round(degrees / 360.0 * PHASE_CYCLE);
+  }
+
+  // One sample's step around the cycle at this frequency, as a fraction of 2^32. Negative (and too fast) wraps.
+  public static int toPhaseIncrement(float frequency, int sampleRate) {
+    return (int) Math.round((double) frequency / sampleRate * PHASE_CYCLE);
+  }
+  public void setFreq(float freq) {
+    preLfoFrequency = freq * this.harmonic;
+    // A ComplexOsc sets its own, and we follow it at our harmonic
+    if (modulation == ownModulation)
+      ownModulation.setTarget(preLfoFrequency);
+  }
+  @Override
+  public void prepare(AudioConfig config) {
+    super.prepare(config);
+    ownModulation.prepare(config);
+    updateFrequency(frequency);
+  }
+
+  // Follow someone else's LFO and lag instead of our own (null to go back to ours). They prepare and render it.
+  public void setModulation(Modulation modulation) {
+    this.modulation = (modulation != null) ? modulation : ownModulation;
+  }
+  public Modulation getModulation() {
+    return modulation;
+  }
+
+  public void setModRate(int rate) {
+    modRate = rate;
+    modulation.setLfoRate(rate * Modulation.HZ_PER_MOD_RATE);
+  }
+  public void setModDepth(int depth) {
+    modDepth = depth;
+    modulation.setLfoDepth(depth / 2f);
+  }
+  public int getModRate() {
+    return modRate;
+  }
+  public int getModDepth() {
+    return modDepth;
+  }
+  public void setLag(float rate) {
+    modulation.setLag(rate);
+  }
+  public float getLag() {
+    return modulation.getLag();
+  }
+
+  protected boolean process(final float[] input, final float[] buffer, final int offset, final int length, boolean kidsDidWork) { // assume t is in 0.0 to 1.0
+		if(! isPlaying() || ! hasWaveform()) {
+			return false;
+		}
+
+    final Modulation modulation = this.modulation;
+    if (modulation == ownModulation)
+      modulation.render(length);
+
+    // One run per stretch of the chunk the LFO and lag hold still for
+    int start = offset;
+    for (int s = 0; s < modulation.getSegmentCount(); s++) {
+      final float freq = preLfoFrequency * modulation.getSegmentRatio(s);
+      if (freq != frequency)
+        updateFrequency(freq);
+
+      final int frames = modulation.getSegmentLength(s);
+      phase = generate(buffer, start, frames, phase, phaseIncrement);
+      start += frames;
+    }
+
+    return true;
+	}
+
+  // Whether a FlattenedOsc can sum us into its table (see getTableFor)
+  public boolean isFlattenable() {
+    return tables != null;
+  }
+
+  // Whether there's anything to generate from (table oscs have nothing until they're filled)
+  protected boolean hasWaveform() {
+    return tables != null;
+  }
+
+  /**
+   * Add length samples of our waveform to buffer from offset, starting at phase and stepping by increment.
+   * Returns the phase after the last sample. Both are fractions of a cycle in 2^32ths (see phase).
+   */
+  protected int generate(final float[] buffer, final int offset, final int length, int phase, final int increment) {
+    // Pick once per block. Tables are always a power of two long (at least 2), but not always ENTRIES.
+    final float[] table = getTableFor(cyclesPerSample);
+    final int size = table.length,
+              mask = size - 1;
+
+    // The top bits of the phase index the table, the rest are how far we are to the next entry
+    final int shift = 32 - Integer.numberOfTrailingZeros(size),
+              fractionMask = (int) ((1L << shift) - 1);
+    final float fractionScale = 1f / (1L << shift);
+
+		for(int i = offset; i < offset + length; i++) {
+      final int index = phase >>> shift;
+      final float fraction = (phase & fractionMask) * fractionScale;
+      buffer[i] += amplitude*((1.0f-fraction)*table[index]+fraction*table[(index+1)&mask]);
+      phase += increment;
+    }
+
+    return phase;
+  }
+
+	public BasicOsc fillWithZero() {
+		final float[] table = detachTable();
+		for(int i = 0; i < ENTRIES; i++) {
+			table[i] = 0;
+		}
+		return this;
+	}  
+  //TODO make these instruments or get rid of them
+  public BasicOsc fillWithHardSin(final float exp) {
+    final float[] table = detachTable();
+    final float dt = (float)(2.0*Math.PI/ENTRIES);
+    for(int i = 0; i < ENTRIES; i++) {
+			table[i] = (float) Math.pow(Math.sin(i*dt),exp);
+		}
+		return this;
+	}
+	
+	
+	public BasicOsc fillWithSqrDuty(float fraction) {
+		final float[] table = detachTable();
+		for(int i = 0; i < ENTRIES; i++) {
+			table[i] = (float)i/ENTRIES<fraction?1f:-1f;
+		}
+		return this;
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * A pulse of any width without tables. See PolyBlepOsc.
+ *
+ * The width can change at any time (including through the ParameterQueue with WIDTH)
+ * and takes effect from the next block, with nothing to rebuild.
+ */
+public class BlepPulse extends PolyBlepOsc {
+  // Fraction of the cycle spent high
+  public static final float DEFAULT_WIDTH = 0.25f,
+                            MIN_WIDTH = 0.01f,
+                            MAX_WIDTH = 0.99f;
+
+  // For setParameter
+  public static final int WIDTH = 0;
+
+  private volatile float width;
+
+  public BlepPulse() {
+    this(1.0f);
+  }
+  public BlepPulse(int phase) {
+    super(phase);
+    name = "Analog Pulse";
+    width = DEFAULT_WIDTH;
+  }
+  public BlepPulse(float amp) {
+    super(amp);
+    name = "Analog Pulse";
+    width = DEFAULT_WIDTH;
+  }
+
+  public float getWidth() {
+    return width;
+  }
+  public void setWidth(float width) {
+    this.width = Math.max(MIN_WIDTH, Math.min(width, MAX_WIDTH));
+  }
+
+  @Override
+  public void setParameter(int param, float value) {
+    switch (param) {
+      case WIDTH:
+        setWidth(value);
+        break;
+    }
+  }
+
+  protected float naive(float t) {
+    return (t < width) ? 1f : -1f;
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, int phase, final int increment) {
+    final float gain = amplitude,
+                dt = toStep(increment),
+                width = this.width;
+    final int phaseOffset = this.phaseOffset;
+
+    // Up at the start of the cycle, down at width
+    for (int i = offset; i < offset + length; i++) {
+      final float t = toCycle(phase + phaseOffset);
+      final float naive = (t < width) ? 1f : -1f;
+      buffer[i] += gain * (naive + polyBlep(t, dt) - polyBlep(wrap(t - width), dt));
+      phase += increment;
+    }
+
+    return phase;
+  }
+}
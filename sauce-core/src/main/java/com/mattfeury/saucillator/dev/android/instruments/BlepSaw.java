@@ -0,0 +1,37 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * A rising saw without tables. See PolyBlepOsc.
+ */
+public class BlepSaw extends PolyBlepOsc {
+  public BlepSaw() {
+    this(1.0f);
+  }
+  public BlepSaw(int phase) {
+    super(phase);
+    name = "Analog Saw";
+  }
+  public BlepSaw(float amp) {
+    super(amp);
+    name = "Analog Saw";
+  }
+
+  protected float naive(float t) {
+    return 2f * t - 1f;
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, int phase, final int increment) {
+    final float gain = amplitude,
+                dt = toStep(increment);
+    final int phaseOffset = this.phaseOffset;
+
+    for (int i = offset; i < offset + length; i++) {
+      final float t = toCycle(phase + phaseOffset);
+      buffer[i] += gain * (2f * t - 1f - polyBlep(t, dt));
+      phase += increment;
+    }
+
+    return phase;
+  }
+}
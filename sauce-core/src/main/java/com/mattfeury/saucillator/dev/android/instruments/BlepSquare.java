@@ -0,0 +1,20 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * A square without tables: a BlepPulse at half width.
+ */
+public class BlepSquare extends BlepPulse {
+  public BlepSquare() {
+    this(1.0f);
+  }
+  public BlepSquare(int phase) {
+    super(phase);
+    name = "Analog Square";
+    setWidth(0.5f);
+  }
+  public BlepSquare(float amp) {
+    super(amp);
+    name = "Analog Square";
+    setWidth(0.5f);
+  }
+}
@@ -0,0 +1,42 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * A triangle without tables, rising from -1 to 1 over the first half of the cycle. See PolyBlepOsc.
+ *
+ * It has no jumps, only corners, so it's corrected with PolyBLAMPs.
+ */
+public class BlepTriangle extends PolyBlepOsc {
+  public BlepTriangle() {
+    this(1.0f);
+  }
+  public BlepTriangle(int phase) {
+    super(phase);
+    name = "Triangle";
+  }
+  public BlepTriangle(float amp) {
+    super(amp);
+    name = "Triangle";
+  }
+
+  protected float naive(float t) {
+    return (t < 0.5f) ? 4f * t - 1f : 3f - 4f * t;
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, int phase, final int increment) {
+    final float gain = amplitude,
+                dt = toStep(increment),
+                // The slope goes from -4 to 4 per cycle at the start and back at the middle
+                corner = 8f * dt;
+    final int phaseOffset = this.phaseOffset;
+
+    for (int i = offset; i < offset + length; i++) {
+      final float t = toCycle(phase + phaseOffset);
+      final float naive = (t < 0.5f) ? 4f * t - 1f : 3f - 4f * t;
+      buffer[i] += gain * (naive + corner * (polyBlamp(t, dt) - polyBlamp(wrap(t - 0.5f), dt)));
+      phase += increment;
+    }
+
+    return phase;
+  }
+}
@@ -0,0 +1,55 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * Brown(ian) noise (falling 6dB an octave): white noise integrated.
+ *
+ * A true integral wanders off without bound, so ours leaks back towards 0 below about CUTOFF Hz.
+ * The input is scaled so it stays about as loud at any sample rate.
+ */
+public class BrownNoise extends Noise {
+  public static final float CUTOFF = 20f;
+  // Roughly where our level sits (its standard deviation), so peaks stay within full scale
+  private static final float LEVEL = 0.25f;
+
+  private float level = 0;
+
+  public BrownNoise() {
+    this(1.0f);
+  }
+  public BrownNoise(int phase) {
+    super(phase);
+    name = "Brown Noise";
+  }
+  public BrownNoise(float amp) {
+    super(amp);
+    name = "Brown Noise";
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    super.setSeed(seed);
+    level = 0;
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, final int phase, final int increment) {
+    // A one pole lowpass at CUTOFF. White noise from -1 to 1 has a variance of 1/3, so this input
+    // scale leaves the output with a standard deviation of LEVEL.
+    final double leak = Math.exp(-2.0 * Math.PI * CUTOFF / config.getSampleRate());
+    final float keep = (float) leak,
+                input = (float) (LEVEL * Math.sqrt(3.0 * (1.0 - leak * leak))),
+                gain = amplitude;
+    int state = this.state;
+    float level = this.level;
+
+    for (int i = offset; i < offset + length; i++) {
+      state = next(state);
+      level = keep * level + input * toSample(state);
+      buffer[i] += gain * level;
+    }
+
+    this.state = state;
+    this.level = level;
+    return phase;
+  }
+}
@@ -0,0 +1,533 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import java.util.LinkedList;
+
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+import com.mattfeury.saucillator.dev.android.sound.AudioEngine;
+import com.mattfeury.saucillator.dev.android.sound.Delay;
+import com.mattfeury.saucillator.dev.android.sound.DspKernels;
+import com.mattfeury.saucillator.dev.android.sound.Envelope;
+import com.mattfeury.saucillator.dev.android.sound.Limiter;
+
+/**
+ * A complex oscillator.
+ * An oscillator that is made up of BasicOscs and sums them together.
+ */
+public class ComplexOsc extends Oscillator {
+
+  protected LinkedList<Oscillator> components;
+  // What the audio thread walks. Swapped (never edited) whenever components changes,
+  // so setters applied between blocks don't trip over UI edits to the list.
+  private volatile Oscillator[] componentSnapshot = new Oscillator[0];
+
+  // Parameter ids for setParameter. Post these through the Dac's ParameterQueue from the UI.
+  public static final int NOTE_ON = 0,
+                          NOTE_OFF = 1,
+                          FREQUENCY = 2,
+                          AMPLITUDE = 3,
+                          MOD_RATE = 4,
+                          MOD_DEPTH = 5,
+                          DELAY_RATE = 6,
+                          DELAY_DECAY = 7,
+                          ATTACK = 8,
+                          RELEASE = 9,
+                          LAG = 10,
+                          MOD_SHAPE = 11,
+                          DECAY = 12,
+                          SUSTAIN = 13,
+                          BASE_FREQUENCY = 14;
+
+  public static final float MAX_AMPLITUDE = 1.0f;//what is this for, eh?
+  
+  private boolean isInternal = false;
+
+  // TODO break out FX into a common trait
+
+  // Told when a voice has finished releasing and gone quiet
+  public interface VoiceListener {
+    // Called on whichever thread rendered the voice (the audio thread or a RenderWorker), so be quick and don't lock
+    public void voiceFinished(ComplexOsc voice);
+  }
+
+  // Envelopes
+  private float maxInternalAmp = 1.0f; // the envelope's peak
+
+  protected float attack = 0.85f,  // these are really just a percentage (see Envelope.toSeconds)
+                  decay = 0f,
+                  sustain = 1f,    // a level, as a fraction of maxInternalAmp
+                  release = 0.85f;
+  protected final Envelope envelope = new Envelope();
+  protected boolean envelopeEnabled = true;
+  // Per sample gains while the envelope is moving. Ours alone, so voices can render in parallel.
+  private float[] envelopeGains = new float[AudioConfig.DEFAULT_BLOCK_SIZE];
+  private transient VoiceListener voiceListener;
+
+  // Delay
+  private Delay delay = new Delay(0);
+
+  // Lfo + lag are worked out once here for every component (and our flattened osc) to follow.
+  // We keep the settings as they were given so the UI can read them back.
+  private final Modulation modulation = new Modulation();
+  protected int modRate = 0,
+                modDepth = 0;
+  protected float lag = AudioEngine.DEFAULT_LAG;
+
+  // When our timbre allows it, we play this single summed oscillator instead of our components
+  private final FlattenedOsc flattened = new FlattenedOsc();
+  private volatile boolean isFlattened = false;
+
+  public ComplexOsc() {
+    this(1.0f);
+  }
+  public ComplexOsc(float amp) {
+    amplitude = amp;
+    components = new LinkedList<Oscillator>();
+
+    setAttack(attack);
+    setDecay(decay);
+    setSustain(sustain);
+    setRelease(release);
+
+    modulation.setLag(lag);
+    modulation.setTarget(frequency * harmonic);
+    flattened.setModulation(modulation);
+  }
+
+  public void fill(Oscillator... oscs) {
+    for(Oscillator osc : oscs)
+      components.add(osc);
+    componentsChanged();
+
+    for(Oscillator osc : oscs)
+      connectComponent(osc);
+    timbreChanged();
+  }
+  public void fill() {
+    for(Oscillator osc : components)
+      osc.fill();    
+    timbreChanged();
+  }
+  @Override
+  public void dispose() {
+    for(Oscillator osc : components)
+      osc.dispose();
+    flattened.dispose();
+  }
+  public LinkedList<Oscillator> getComponents() {
+    return components;
+  }
+  public Oscillator getComponent(int index) {
+    return components.get(index);
+  }
+  public void removeComponent(int index) {
+    Oscillator osc = components.remove(index);
+    componentsChanged();
+    osc.setPlaying(false);
+    osc.unchuck(this);
+    if (osc instanceof BasicOsc)
+      ((BasicOsc)osc).setModulation(null);
+    osc.dispose();
+    timbreChanged();
+  }
+  public void insertComponent(int index, Oscillator osc) {
+    components.add(index, osc);
+    componentsChanged();
+    connectComponent(osc);
+    timbreChanged();
+  }
+  private void componentsChanged() {
+    componentSnapshot = components.toArray(new Oscillator[components.size()]);
+  }
+  private void connectComponent(Oscillator osc) {
+    osc.setPlaying(true); //we manage playback here, so all the children should always be playing
+    osc.chuck(this);
+
+    if (osc instanceof BasicOsc)
+      ((BasicOsc)osc).setModulation(modulation);
+    else {
+      // Anything else (e.g. another ComplexOsc) keeps its own, set the same as ours
+      osc.setModRate(modRate);
+      osc.setModDepth(modDepth);
+      osc.setLag(lag);
+    }
+  }
+
+  /**
+   * Timbre flattening
+   * Call timbreChanged after editing a component (harmonic, amplitude, phase) directly.
+   * Adding and removing components takes care of it for you.
+   */
+  public void timbreChanged() {
+    BasicOsc[] flattenable = getFlattenableComponents();
+    if (flattenable == null) {
+      isFlattened = false;
+      return;
+    }
+
+    flattened.flatten(flattenable);
+    isFlattened = true;
+  }
+  public boolean isFlattened() {
+    return isFlattened;
+  }
+  // Subclasses that don't keep their components at whole harmonics of setFreq can't be flattened
+  protected boolean canFlatten() {
+    return true;
+  }
+  // Our components, if they can be collapsed into one table. Otherwise null.
+  private BasicOsc[] getFlattenableComponents() {
+    // With one component there's nothing to gain
+    if (! canFlatten() || components.size() < 2)
+      return null;
+
+    BasicOsc[] basics = new BasicOsc[components.size()];
+    int i = 0;
+    for(Oscillator osc : components) {
+      if (! (osc instanceof BasicOsc) || ! ((BasicOsc)osc).isFlattenable() || osc.getHarmonic() < 1)
+        return null;
+
+      basics[i++] = (BasicOsc)osc;
+    }
+
+    return basics;
+  }
+
+  public void setInternal(boolean internal) {
+    this.isInternal = internal;
+  }
+  public boolean isInternal() {
+    return isInternal;
+  }
+
+  public void setFreq(float freq) {
+    modulation.setTarget(freq * this.harmonic);
+
+    for(Oscillator osc : componentSnapshot)
+      osc.setFreq(freq * this.harmonic);
+    flattened.setFreq(freq * this.harmonic);
+  }
+
+  public ComplexOsc resetEffects() {
+    setModRate(0);
+    setModDepth(0);
+    setLag(0);
+    setDelayRate(0);
+    setDelayDecay(0);
+
+    envelopeEnabled = false;
+    //setAttack(0);
+    //setRelease(0);
+
+    // For chaining. Because, why not?
+    return this;
+  }
+
+  // LFO methods
+  public void setModRate(float progress) {
+    setModRate((int)(progress * AudioEngine.MOD_RATE_MAX));
+  }
+  public void setModRate(int rate) {
+    this.modRate = rate;
+    modulation.setLfoRate(rate * Modulation.HZ_PER_MOD_RATE);
+
+    for(Oscillator osc : componentSnapshot)
+      if (! (osc instanceof BasicOsc))
+        osc.setModRate(rate);
+  }
+  public void setModDepth(float progress) {
+    setModDepth((int)(progress * AudioEngine.MOD_DEPTH_MAX));
+  }
+  public void setModDepth(int depth) {
+    this.modDepth = depth;
+    modulation.setLfoDepth(depth / 2f);
+
+    for(Oscillator osc : componentSnapshot)
+      if (! (osc instanceof BasicOsc))
+        osc.setModDepth(depth);
+  }
+  public int getModRate() {
+    return modRate;    
+  }
+  public int getModDepth() {
+    return modDepth;
+  }
+  // One of Modulation's shapes (SINE, TRIANGLE, SAW or SAMPLE_AND_HOLD)
+  public void setModShape(int shape) {
+    modulation.setShape(shape);
+
+    for(Oscillator osc : componentSnapshot)
+      if (osc instanceof ComplexOsc)
+        ((ComplexOsc)osc).setModShape(shape);
+  }
+  public int getModShape() {
+    return modulation.getShape();
+  }
+  protected Modulation getModulation() {
+    return modulation;
+  }
+
+  // Lag
+  public float getLag() {
+    return lag;
+  }
+  public void setLag(float rate) {
+    this.lag = rate;
+    modulation.setLag(rate);
+
+    for(Oscillator osc : componentSnapshot)
+      if (! (osc instanceof BasicOsc))
+        osc.setLag(rate);
+  }
+
+  // Each component gets a seed of its own, so two noises in one timbre aren't the same noise.
+  // Spread out so voices seeded one apart don't share any.
+  @Override
+  public void setSeed(long seed) {
+    modulation.setSeed(seed);
+
+    final Oscillator[] components = componentSnapshot;
+    for (int i = 0; i < components.length; i++)
+      components[i].setSeed(seed * 0x9E3779B97F4A7C15L + i);
+  }
+
+  // Delay
+  public void setDelayRate(int rate) {
+    delay.setRate(rate);
+  }
+  public void setDelayRate(float percentage) {
+    setDelayRate((int)(percentage * AudioEngine.DELAY_RATE_MAX));
+  }
+
+  public int getDelayRate() {
+    return delay.getRate();
+  }
+  public float getDelayDecay() {
+    return delay.getDecay();
+  }
+  public void setDelayDecay(float decay) {
+    delay.setDecay(decay);
+  }
+
+  public void setMaxInternalAmp(float amp) {
+    this.maxInternalAmp = amp;
+  }
+  public float getMaxInternalAmp() {
+    return maxInternalAmp;
+  }
+  // How loud we are right now, envelope included
+  public float getCurrentAmplitude() {
+    if (! isPlaying())
+      return 0f;
+
+    return envelopeEnabled ? amplitude * maxInternalAmp * envelope.getLevel() : amplitude;
+  }
+
+  /**
+   * Applied on the audio thread, right before the frame it was posted for. See ParameterQueue.
+   */
+  @Override
+  public void setParameter(int param, float value) {
+    switch (param) {
+      case NOTE_ON:
+        noteOn();
+        break;
+      case NOTE_OFF:
+        noteOff();
+        break;
+      case FREQUENCY:
+        setFreq(value);
+        break;
+      case AMPLITUDE:
+        setAmplitude(value);
+        break;
+      case MOD_RATE:
+        setModRate((int)value);
+        break;
+      case MOD_DEPTH:
+        setModDepth((int)value);
+        break;
+      case DELAY_RATE:
+        setDelayRate((int)value);
+        break;
+      case DELAY_DECAY:
+        setDelayDecay(value);
+        break;
+      case ATTACK:
+        setAttack(value);
+        break;
+      case RELEASE:
+        setRelease(value);
+        break;
+      case DECAY:
+        setDecay(value);
+        break;
+      case SUSTAIN:
+        setSustain(value);
+        break;
+      case LAG:
+        setLag(value);
+        break;
+      case MOD_SHAPE:
+        setModShape((int)value);
+        break;
+      case BASE_FREQUENCY:
+        setBaseFreq(value);
+        break;
+    }
+  }
+
+  /**
+   * Envelope stuff
+   * Maybe make this an interface or something
+   */
+  // A finger (or score) pressed down: (re)start us unless we're already sounding
+  public void noteOn() {
+    if (! isPlaying() || isReleasing())
+      togglePlayback();
+  }
+  // And let go
+  public void noteOff() {
+    if (isPlaying() && ! isReleasing())
+      togglePlayback();
+  }
+  @Override
+  public void togglePlayback() {
+    if ((isReleasing() && isPlaying()) || ! isPlaying())
+      startAttack();
+    else
+      startRelease();
+  }
+  public boolean isReleasing() {
+    return envelope.getStage() == Envelope.RELEASE;
+  }
+  public boolean isAttacking() {
+    return envelope.getStage() == Envelope.ATTACK;
+  }
+
+  public float getAttack() {
+    return attack;
+  }
+  public void setAttack(float a) {
+    attack = a;
+    envelope.setAttack(Envelope.toSeconds(a));
+  }
+  // Same units as attack and release
+  public float getDecay() {
+    return decay;
+  }
+  public void setDecay(float d) {
+    decay = d;
+    envelope.setDecay(Envelope.toSeconds(d));
+  }
+  public float getSustain() {
+    return sustain;
+  }
+  public void setSustain(float s) {
+    sustain = s;
+    envelope.setSustain(s);
+  }
+  public float getRelease() {
+    return release;
+  }
+  public void setRelease(float r) {
+    release = r;
+    envelope.setRelease(Envelope.toSeconds(r));
+  }
+  public void startAttack() {
+    this.start();
+    envelope.noteOn();
+  }
+  public void startRelease() {
+    // Without an envelope we're a plain gate
+    if (! envelopeEnabled)
+      envelope.reset();
+    else
+      envelope.noteOff();
+
+    if (envelope.getStage() == Envelope.IDLE)
+      finished();
+  }
+  // Our release is over, so there's nothing left to play but echoes
+  private void finished() {
+    this.stop();
+
+    final VoiceListener listener = voiceListener;
+    if (listener != null)
+      listener.voiceFinished(this);
+  }
+
+  public void setVoiceListener(VoiceListener listener) {
+    this.voiceListener = listener;
+  }
+
+  // Our components are kids, so they're prepared along with the rest of the graph. These aren't.
+  @Override
+  public void prepare(AudioConfig config) {
+    super.prepare(config);
+    delay.prepare(config);
+    flattened.prepare(config);
+    modulation.prepare(config);
+    envelope.prepare(config);
+
+    if (envelopeGains.length != config.getBlockSize())
+      envelopeGains = new float[config.getBlockSize()];
+  }
+
+  // Our components are summed on their own so the envelope and amplitude only apply to them
+  @Override
+  protected boolean isolatesKids() {
+    return true;
+  }
+  // When flattened, we render in place of our components
+  @Override
+  protected boolean shouldRenderKids() {
+    return isPlaying() && ! isFlattened;
+  }
+  // Our components all follow the one LFO and lag, so it moves on once before any of them render
+  @Override
+  protected void kidsWillRender(final int offset, final int length) {
+    modulation.render(length);
+  }
+
+  // Released and the echoes are gone. Most voices in the pool spend most of their time here.
+  @Override
+  public boolean isQuiet() {
+    return ! isPlaying() && delay.isQuiet();
+  }
+
+  // We only ever add ourselves to buffer (and limit just our own sound), so voices can render in parallel
+  @Override
+  public boolean isAdditive() {
+    return true;
+  }
+
+  protected boolean process(final float[] kidsBuffer, final float[] buffer, final int offset, final int length, boolean kidsDidWork) {
+    if(isPlaying()) {
+      if (isFlattened) {
+        modulation.render(length);
+        kidsDidWork = flattened.render(kidsBuffer, offset, length);
+      }
+
+      if (envelopeEnabled && ! envelope.isSteady()) {
+        final boolean released = envelope.render(envelopeGains, offset, length, amplitude * maxInternalAmp);
+        DspKernels.multiply(kidsBuffer, envelopeGains, offset, length);
+        if (released)
+          finished();
+      } else {
+        final float gain = envelopeEnabled ? amplitude * maxInternalAmp * envelope.getLevel() : amplitude;
+        DspKernels.scale(kidsBuffer, offset, length, gain);
+      }
+    }
+
+    // Only our own sound goes through our delay, so our echoes die away on their own schedule.
+    // kidsBuffer is ours alone, so if nothing was rendered into it the delay only has to run while it's echoing.
+    final boolean echoing = (kidsDidWork || ! delay.isQuiet()) && delay.render(kidsBuffer, offset, length);
+
+    if (kidsDidWork || echoing) {
+      Limiter.limit(kidsBuffer, offset, length);
+      DspKernels.mixAdd(buffer, kidsBuffer, offset, length);
+    }
+
+    return kidsDidWork || echoing;
+  }
+}
@@ -0,0 +1,242 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * A ComplexOsc's timbre collapsed into a single oscillator.
+ *
+ * As long as every component is a table based BasicOsc at a whole harmonic, and they all
+ * share the same LFO + lag (which ComplexOsc enforces), their sum repeats at the fundamental.
+ * So instead of every component doing its own lookup, phase and modulation work each sample,
+ * we sum them once into a single cycle and play that back like any other BasicOsc.
+ *
+ * Flattening should only change what a timbre costs, not how it sounds. Played one by one, each
+ * band limited component picks its own level from its own rate, and components at harmonics that
+ * aren't a power of two change level at rates in between ours. So we cut our range at every rate
+ * where any component changes level (see bounds) and sum a table for each stretch from exactly
+ * the levels the components would be playing. Tables are big enough that a component at harmonic h
+ * keeps every entry of its own (h times 4096 for band limited ones), so the sum reads its levels as finely
+ * as it would itself. That's more tables, and bigger ones, than a single band limited osc has, but
+ * they're shared by every voice playing the timbre. FlattenCheck (in sauce-bench) plays timbres both
+ * ways and makes sure they agree.
+ */
+public class FlattenedOsc extends BasicOsc {
+
+  // What render reads: everything one flatten worked out, built in full before it's published with a single
+  // write. So the audio thread never picks the tables of one timbre with the bounds of another.
+  private static final class Flattening {
+    // The rates (in cycles per sample at the fundamental) at which some band limited component moves up a level,
+    // in order. Table n is for rates above bounds[n - 1] up to bounds[n]. Empty if nothing is band limited.
+    final float[] bounds;
+    final float[][] tables;
+    // What the tables are held under in the WavetableCache, or null once we've let go of them
+    final String key;
+
+    Flattening(float[] bounds, float[][] tables, String key) {
+      this.bounds = bounds;
+      this.tables = tables;
+      this.key = key;
+    }
+  }
+  private volatile Flattening state;
+
+  // What we're flattening. Only touched by flatten and the table building it asks the cache for.
+  private BasicOsc[] components;
+  private int[] harmonics;
+  private float[] amplitudes;
+  private float[] bounds;
+
+  public FlattenedOsc() {
+    super();
+    name = "Flattened";
+    setPlaying(true);
+  }
+
+  /**
+   * Rebuild (or fetch from the cache) the summed tables for these components.
+   * Our phase and modulation state carry on as they were.
+   */
+  public void flatten(BasicOsc[] components) {
+    this.components = components;
+    harmonics = new int[components.length];
+    amplitudes = new float[components.length];
+    for (int c = 0; c < components.length; c++) {
+      harmonics[c] = components[c].getHarmonic();
+      amplitudes[c] = components[c].getAmplitude();
+    }
+    bounds = findBounds(components, harmonics);
+
+    // Tables we can't describe by a key are built just for us
+    final String key = getTableKey();
+    final Flattening previous = state;
+    state = new Flattening(bounds, (key != null) ? WavetableCache.acquire(key, this) : buildTables(), key);
+
+    if (previous != null && previous.key != null)
+      WavetableCache.release(previous.key);
+  }
+
+  // Our tables only ever come from flatten
+  @Override
+  public void fill() {
+  }
+
+  // Like any BasicOsc, we keep playing what we have but stop holding it in the cache
+  @Override
+  public void dispose() {
+    final Flattening previous = state;
+    if (previous == null || previous.key == null)
+      return;
+
+    state = new Flattening(previous.bounds, previous.tables, null);
+    WavetableCache.release(previous.key);
+  }
+
+  @Override
+  protected boolean hasWaveform() {
+    return state != null;
+  }
+
+  // A component at harmonic h leaves level n once the fundamental passes level n's limit over h
+  private static float[] findBounds(BasicOsc[] components, int[] harmonics) {
+    TreeSet<Float> bounds = new TreeSet<Float>();
+    for (int c = 0; c < components.length; c++) {
+      if (! hasLevels(components[c]))
+        continue;
+
+      for (int level = 0; level < BandLimitedOsc.LEVELS - 1; level++)
+        bounds.add(BandLimitedOsc.getLevelLimit(level) / harmonics[c]);
+    }
+
+    float[] sorted = new float[bounds.size()];
+    int i = 0;
+    for (Float bound : bounds)
+      sorted[i++] = bound;
+    return sorted;
+  }
+
+  // Anyone else flattening the same timbre gets the same tables. We sum each component's tables as they were
+  // filled (and scale them by its amplitude now), so that's what goes in the key. If a component drew its own,
+  // there's no telling whose match, so there's no key.
+  @Override
+  protected String getTableKey() {
+    if (components == null)
+      return null;
+
+    StringBuilder key = new StringBuilder("flat");
+    for (int c = 0; c < components.length; c++) {
+      final String filled = components[c].getFilledTableKey();
+      if (filled == null)
+        return null;
+
+      key.append('[')
+         .append(filled)
+         .append('*').append(harmonics[c])
+         .append('*').append(amplitudes[c])
+         .append(']');
+    }
+
+    return key.toString();
+  }
+
+  @Override
+  protected float[][] buildTables() {
+    // Anything not band limited has the one table. Ask once: some (Sine) make a new one every time.
+    final float[][] single = new float[components.length][];
+    for (int c = 0; c < components.length; c++)
+      if (! hasLevels(components[c]))
+        single[c] = components[c].getTableFor(0f);
+
+    // Every table the same size: enough that no component skips over entries of its own
+    int size = 1;
+    for (int c = 0; c < components.length; c++) {
+      final int needed = (single[c] != null)
+        ? single[c].length
+        : BandLimitedOsc.LEVEL_ENTRIES * harmonics[c];
+      while (size < needed)
+        size *= 2;
+    }
+
+    // What each component adds at the level it's on. Levels only go up from one stretch to the next,
+    // so each one is resampled once.
+    final float[][] parts = new float[components.length][];
+    final int[] partLevels = new int[components.length];
+
+    float[][] stretchTables = new float[bounds.length + 1][];
+    for (int stretch = 0; stretch <= bounds.length; stretch++) {
+      final float[] table = new float[size];
+
+      for (int c = 0; c < components.length; c++) {
+        final int level = getComponentLevel(c, stretch);
+        if (parts[c] == null || partLevels[c] != level) {
+          parts[c] = new float[size];
+          partLevels[c] = level;
+
+          final float[] source = (single[c] != null)
+            ? single[c]
+            : components[c].getTableFor(BandLimitedOsc.getLevelLimit(level));
+          addHarmonic(parts[c], source, harmonics[c], amplitudes[c]);
+        }
+
+        final float[] part = parts[c];
+        for (int i = 0; i < size; i++)
+          table[i] += part[i];
+      }
+
+      stretchTables[stretch] = table;
+    }
+
+    return stretchTables;
+  }
+
+  // The level component c plays at over this stretch: how many of its bounds lie below it
+  private int getComponentLevel(int c, int stretch) {
+    if (! hasLevels(components[c]) || stretch == 0)
+      return 0;
+
+    final float above = bounds[stretch - 1];
+    int level = 0;
+    while (level < BandLimitedOsc.LEVELS - 1 && BandLimitedOsc.getLevelLimit(level) / harmonics[c] <= above)
+      level++;
+    return level;
+  }
+
+  // Band limited, and still on its own levels rather than a table someone drew into it
+  private static boolean hasLevels(BasicOsc component) {
+    return component instanceof BandLimitedOsc && component.tables.length > 1;
+  }
+
+  // Only used if someone asks for a single table. Same as the lowest stretch.
+  protected void fillTable(final float[] table) {
+    for (int c = 0; c < components.length; c++)
+      addHarmonic(table, components[c].getTableFor(0f), harmonics[c], amplitudes[c]);
+  }
+
+  @Override
+  protected float[] getTableFor(float cyclesPerSample) {
+    // Read once, so the bounds and tables are from the same flatten
+    final Flattening state = this.state;
+    final float[][] tables = state.tables;
+    if (tables.length == 1)
+      return tables[0];
+
+    // A rate right on a bound still belongs to the stretch below it
+    final int found = Arrays.binarySearch(state.bounds, cyclesPerSample);
+    return tables[(found >= 0) ? found : -found - 1];
+  }
+
+  // Add source, sped up to harmonic and scaled by amplitude, on top of table. Both are a power of two long.
+  private static void addHarmonic(final float[] table, final float[] source, final int harmonic, final float amplitude) {
+    final int size = table.length,
+              mask = size - 1,
+              sourceMask = source.length - 1;
+    final float scale = (float) source.length / size;
+
+    for (int i = 0; i < size; i++) {
+      final float scaled = ((i * harmonic) & mask) * scale;
+      final int index = (int)scaled;
+      final float fraction = scaled - index;
+      table[i] += amplitude * ((1.0f - fraction) * source[index & sourceMask] + fraction * source[(index + 1) & sourceMask]);
+    }
+  }
+}
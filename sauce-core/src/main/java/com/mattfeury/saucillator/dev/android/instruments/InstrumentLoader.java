@@ -0,0 +1,15 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * Wherever instruments come from.
+ *
+ * On the device this is InstrumentService (assets and the SD card). Off it, anything that can
+ * hand out ComplexOscs will do, which is all the engine needs to play them.
+ */
+public interface InstrumentLoader {
+  // The instrument with this name, or null if it doesn't exist or can't be read
+  public ComplexOsc getInstrument(String name);
+
+  // A new, independent instrument that sounds the same as osc, or null if it can't be copied
+  public ComplexOsc copyInstrument(ComplexOsc osc);
+}
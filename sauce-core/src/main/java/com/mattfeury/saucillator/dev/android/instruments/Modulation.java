@@ -0,0 +1,217 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mattfeury.saucillator.dev.android.sound.AudioConfig;
+
+/**
+ * A voice's LFO and glide (lag), worked out once for all of its oscillators.
+ *
+ * The glide slews towards the frequency we were last set to and the LFO wobbles around it. Both are only
+ * evaluated at control points, every config.getControlPeriod() frames, and interpolated linearly from one
+ * point to the next. Oscillators step at one rate per period (they take a single increment per run), so each
+ * period plays the mean of that line: the phase ends up exactly where the interpolated curve takes it.
+ * Everything is in real time (Hz and seconds), so how fast they move doesn't depend on the block size or
+ * the sample rate, and how the Dac splits blocks at events doesn't change a single sample.
+ *
+ * Oscillators don't read the value directly. render() cuts the next chunk into segments, each with the
+ * ratio oscillators should scale their own frequency by (the value over the frequency we're headed for).
+ * So every component of a ComplexOsc follows the same curve at its own harmonic. Segments with the same
+ * ratio are merged, so an unmodulated voice renders in one piece. Nothing here allocates once prepared.
+ */
+public class Modulation implements Serializable {
+  // LFO shapes
+  public static final int SINE = 0,
+                          TRIANGLE = 1,
+                          SAW = 2,
+                          SAMPLE_AND_HOLD = 3,
+                          SHAPES = 4;
+
+  // The LFO used to step sin(modRate * t) by t += .05 every default sized block. This keeps its speed.
+  public static final float HZ_PER_MOD_RATE = (float) (.05 / (2 * Math.PI * AudioConfig.DEFAULT.getBlockSize() / AudioConfig.DEFAULT.getSampleRate()));
+
+  private static final float TWO_PI = (float) (2 * Math.PI);
+
+  // Hands out a different starting seed to each Modulation that isn't given one
+  private static final AtomicLong seeds = new AtomicLong(System.nanoTime());
+
+  private int sampleRate, period;
+  // What a default sized block is in control periods, for the glide's rate
+  private float referenceBlocksPerPeriod;
+
+  // Settings
+  private float target = 0f;
+  private int shape = SINE;
+  private float lfoRate = 0f, lfoDepth = 0f;
+  // How much of the gap to the target the glide leaves after a default sized block, and after a period
+  private float lag = 0f, keep = 0f;
+
+  // State at the last control point
+  private float glide = 0f, lfoPhase = 0f, held = 0f;
+  private int random = 1;
+
+  // The value at the last control point, and the mean on the way to the next one (how many frames off that is)
+  private float value = 0f, mean = 0f;
+  private int untilNext = 0;
+
+  // The segments of the last chunk rendered
+  private int[] lengths;
+  private float[] ratios;
+  private int count = 0;
+
+  public Modulation() {
+    prepare(AudioConfig.DEFAULT);
+    setSeed(seeds.incrementAndGet());
+  }
+
+  public void prepare(AudioConfig config) {
+    sampleRate = config.getSampleRate();
+    period = config.getControlPeriod();
+    referenceBlocksPerPeriod = config.toReferenceBlocks(period);
+    keep = toKeep(lag);
+
+    // A chunk can start and end part way through a period
+    final int capacity = config.getBlockSize() / period + 2;
+    if (lengths == null || lengths.length < capacity) {
+      lengths = new int[capacity];
+      ratios = new float[capacity];
+    }
+
+    untilNext = Math.min(untilNext, period);
+  }
+
+  // The frequency we're headed for. Changing it starts the LFO over, and without any glide, jumps straight there.
+  public void setTarget(float frequency) {
+    if (frequency == target)
+      return;
+
+    target = frequency;
+    lfoPhase = 0f;
+    held = nextRandom();
+
+    if (keep == 0f) {
+      glide = target;
+      value = mean = valueAt(lfoPhase);
+    }
+  }
+  public float getTarget() {
+    return target;
+  }
+
+  public void setShape(int shape) {
+    this.shape = Math.max(0, Math.min(shape, SHAPES - 1));
+  }
+  public int getShape() {
+    return shape;
+  }
+  // In Hz. 0 turns the LFO off.
+  public void setLfoRate(float hz) {
+    lfoRate = Math.max(0f, hz);
+  }
+  public float getLfoRate() {
+    return lfoRate;
+  }
+  // How far either side of the target it swings, in Hz at the fundamental
+  public void setLfoDepth(float hz) {
+    lfoDepth = hz;
+  }
+  public float getLfoDepth() {
+    return lfoDepth;
+  }
+
+  // From 0 (jump straight to a new target) towards 1 (never get there): the fraction of the gap still left after
+  // each default sized block, so the glide closes in exponentially.
+  public void setLag(float lag) {
+    this.lag = Math.max(0f, Math.min(lag, 1f));
+    keep = toKeep(this.lag);
+  }
+  public float getLag() {
+    return lag;
+  }
+  private float toKeep(float lag) {
+    return (lag == 0f) ? 0f : (float) Math.pow(lag, referenceBlocksPerPeriod);
+  }
+
+  // Sample and hold draws from this, so the same seed always wobbles the same
+  public void setSeed(long seed) {
+    final int mixed = (int) (seed ^ (seed >>> 32)) * 0x9E3779B9;
+    random = (mixed != 0) ? mixed : 1;
+  }
+  private float nextRandom() {
+    random = Noise.next(random);
+    return Noise.toSample(random);
+  }
+
+  // The LFO alone, from -1 to 1, at this far through its cycle. Every shape starts at 0 (or a new random value).
+  private float lfoAt(final float phase) {
+    switch (shape) {
+      case TRIANGLE:
+        return (phase < .25f) ? 4f * phase : (phase < .75f) ? 2f - 4f * phase : 4f * phase - 4f;
+      case SAW:
+        return (phase < .5f) ? 2f * phase : 2f * phase - 2f;
+      case SAMPLE_AND_HOLD:
+        return held;
+      default:
+        return (float) Math.sin(TWO_PI * phase);
+    }
+  }
+  private float valueAt(final float phase) {
+    if (lfoRate == 0f || lfoDepth == 0f)
+      return glide;
+
+    return glide + lfoDepth * lfoAt(phase);
+  }
+
+  // On to the next control point
+  private void step() {
+    glide = (keep == 0f) ? target : target + keep * (glide - target);
+
+    lfoPhase += lfoRate * period / sampleRate;
+    if (lfoPhase >= 1f) {
+      lfoPhase -= (int) lfoPhase;
+      held = nextRandom();
+    }
+
+    final float next = valueAt(lfoPhase);
+    mean = (value + next) * .5f;
+    value = next;
+    untilNext = period;
+  }
+
+  // Cut the next length frames into segments (see getSegmentRatio)
+  public void render(final int length) {
+    count = 0;
+    for (int done = 0; done < length; ) {
+      if (untilNext == 0)
+        step();
+
+      final int frames = Math.min(untilNext, length - done);
+      addSegment(frames, mean);
+
+      untilNext -= frames;
+      done += frames;
+    }
+  }
+  private void addSegment(final int frames, final float value) {
+    final float ratio = (target == 0f) ? 1f : value / target;
+    if (count > 0 && ratios[count - 1] == ratio) {
+      lengths[count - 1] += frames;
+      return;
+    }
+
+    lengths[count] = frames;
+    ratios[count] = ratio;
+    count++;
+  }
+
+  public int getSegmentCount() {
+    return count;
+  }
+  public int getSegmentLength(int segment) {
+    return lengths[segment];
+  }
+  public float getSegmentRatio(int segment) {
+    return ratios[segment];
+  }
+}
@@ -0,0 +1,94 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * White noise, made up as we go.
+ *
+ * Every sample is a fresh draw from a xorshift generator of our own, so there's no table to hold
+ * and no cycle to hear repeating. Noise doesn't have a pitch, so frequency (and the LFO) don't change it.
+ * Each Noise starts from a different seed unless given one (see setSeed), which is how offline renders
+ * come out the same every time. PinkNoise and BrownNoise shape the same generator.
+ */
+public class Noise extends BasicOsc {
+  // Hands out a different starting seed to each Noise that isn't given one
+  private static final AtomicLong seeds = new AtomicLong(System.nanoTime());
+
+  // xorshift32 state. Never 0.
+  protected int state;
+
+  public Noise() {
+    super();
+    name = "Noise";
+    setSeed(seeds.incrementAndGet());
+  }
+  public Noise(int phase) {
+    super(phase);
+    name = "Noise";
+    setSeed(seeds.incrementAndGet());
+  }
+  public Noise(float amp) {
+    super(amp);
+    name = "Noise";
+    setSeed(seeds.incrementAndGet());
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    // Mixed (splitmix64's finalizer) so nearby seeds don't start out alike
+    long z = seed + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    z ^= z >>> 31;
+
+    final int mixed = (int) (z ^ (z >>> 32));
+    state = (mixed != 0) ? mixed : 1;
+  }
+
+  // The generator's next state
+  protected static int next(int state) {
+    state ^= state << 13;
+    state ^= state >>> 17;
+    state ^= state << 5;
+    return state;
+  }
+
+  // A state as a sample from -1 up to 1
+  protected static float toSample(final int state) {
+    return state * 0x1p-31f;
+  }
+
+  // No tables, so fill() has nothing to do
+  @Override
+  protected String getTableKey() {
+    return null;
+  }
+
+  @Override
+  protected boolean hasWaveform() {
+    return true;
+  }
+
+  // Only if someone asks for a table of us anyway. It will repeat, which is why we don't use one.
+  protected void fillTable(final float[] table) {
+    int state = this.state;
+    for(int i = 0; i < table.length; i++) {
+      state = next(state);
+      table[i] = amplitude * toSample(state);
+    }
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, final int phase, final int increment) {
+    final float gain = amplitude;
+    int state = this.state;
+
+    for (int i = offset; i < offset + length; i++) {
+      state = next(state);
+      buffer[i] += gain * toSample(state);
+    }
+
+    this.state = state;
+    return phase;
+  }
+}
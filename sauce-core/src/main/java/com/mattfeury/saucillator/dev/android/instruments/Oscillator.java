@@ -1,6 +1,5 @@
 package com.mattfeury.saucillator.dev.android.instruments;
 
-import com.mattfeury.saucillator.dev.android.sound.Lagger;
 import com.mattfeury.saucillator.dev.android.sound.UGen;
 
 /**
@@ -24,9 +23,6 @@ public abstract class Oscillator extends UGen {
     return harmonic;
   }
 
-  // Callback called post rendering
-  public abstract void rendered();
-  
   public abstract void setFreq(float freq);
   public abstract void setModRate(int rate);
   public abstract void setModDepth(int depth);
@@ -50,9 +46,11 @@ public abstract class Oscillator extends UGen {
     BASE_FREQ = freq;
   }
 
-  public synchronized void setFreqByOffset(int[] scale, int offset) {
-    float freq = Theory.getFrequencyForScaleNote(scale, BASE_FREQ, offset);
-    setFreq(freq);
+  public void setFreqByOffset(int[] scale, int offset) {
+    setFreq(getFreqByOffset(scale, offset));
+  }
+  public float getFreqByOffset(int[] scale, int offset) {
+    return Theory.getFrequencyForScaleNote(scale, BASE_FREQ, offset);
   }
 
   public String getName() {
@@ -71,4 +69,12 @@ public abstract class Oscillator extends UGen {
   // This [re]fills our table for BasicOsc.
   // For ComplexOscs, it refills the children.
   public abstract void fill();  
+
+  // Anything random (e.g. Noise) starts over from this seed, so the same seed always sounds the same
+  public void setSeed(long seed) {
+  }
+
+  // Let go of anything shared (e.g. cached wavetables). Call when this oscillator is thrown away.
+  public void dispose() {
+  }
 }
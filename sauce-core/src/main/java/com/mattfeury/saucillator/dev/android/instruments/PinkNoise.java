@@ -0,0 +1,79 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import java.util.Arrays;
+
+/**
+ * Pink noise (falling 3dB an octave), by the Voss-McCartney method.
+ *
+ * We keep ROWS random values and a running sum of them. Row n is redrawn every 2^(n + 1) samples,
+ * staggered so only one changes per sample (the one matching the counter's trailing zeros), and a fresh
+ * white sample goes on top. The slow rows carry the low end, so each octave down gets as much power as the one above.
+ */
+public class PinkNoise extends Noise {
+  // Rows cover the octaves from the top down to about sampleRate / 2^(ROWS + 1), under 3Hz at 22kHz
+  public static final int ROWS = 12;
+  // The sum has ROWS + 1 uniform parts. This puts full scale about four standard deviations out.
+  private static final float SCALE = 1.5f / (ROWS + 1);
+
+  private final float[] rows = new float[ROWS];
+  private float sum = 0;
+  private int counter = 0;
+
+  public PinkNoise() {
+    this(1.0f);
+  }
+  public PinkNoise(int phase) {
+    super(phase);
+    name = "Pink Noise";
+  }
+  public PinkNoise(float amp) {
+    super(amp);
+    name = "Pink Noise";
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    super.setSeed(seed);
+
+    // Called from Noise's constructor too, before we have rows. They start out silent anyway.
+    if (rows != null) {
+      Arrays.fill(rows, 0f);
+      sum = 0;
+      counter = 0;
+    }
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, final int phase, final int increment) {
+    final float gain = amplitude * SCALE;
+    final float[] rows = this.rows;
+    int state = this.state,
+        counter = this.counter;
+    float sum = this.sum;
+
+    for (int i = offset; i < offset + length; i++) {
+      final int row = Integer.numberOfTrailingZeros(++counter);
+      if (row < ROWS) {
+        state = next(state);
+        final float value = toSample(state);
+        sum += value - rows[row];
+        rows[row] = value;
+      }
+
+      state = next(state);
+      buffer[i] += gain * (sum + toSample(state));
+    }
+
+    // Rounding would slowly walk the running sum away from the rows, so start it over every so often
+    if ((counter >>> 16) != (this.counter >>> 16)) {
+      sum = 0;
+      for (int row = 0; row < ROWS; row++)
+        sum += rows[row];
+    }
+
+    this.state = state;
+    this.counter = counter;
+    this.sum = sum;
+    return phase;
+  }
+}
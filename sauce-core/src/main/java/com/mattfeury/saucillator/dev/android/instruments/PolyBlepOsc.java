@@ -0,0 +1,95 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * An oscillator with sharp edges that's worked out sample by sample instead of read from a table.
+ *
+ * Each sample is the naive waveform (a ramp, a step) plus a small polynomial correction in the two
+ * samples around every discontinuity: a PolyBLEP where the wave jumps, a PolyBLAMP where its slope does.
+ * That takes out most of the aliasing a naive wave has, at any pitch, with no tables at all: nothing is
+ * built, cached or shared, so these cost no memory per voice and their shape can change every block.
+ *
+ * Frequency, LFO and lag all work like any other BasicOsc. We never have tables, so we're never flattened.
+ */
+public abstract class PolyBlepOsc extends BasicOsc {
+  // The phase offset (oscPhase) as a fraction of 2^32. Set by fill, which runs before our own initializers would.
+  protected int phaseOffset;
+
+  public PolyBlepOsc(float amp) {
+    super(amp);
+  }
+  public PolyBlepOsc(int phase) {
+    super(phase);
+  }
+
+  // No tables to key, so fill() only has to pick up our phase
+  @Override
+  protected String getTableKey() {
+    return null;
+  }
+
+  @Override
+  public void fill() {
+    super.fill();
+    phaseOffset = toPhaseOffset(oscPhase);
+  }
+
+  @Override
+  protected boolean hasWaveform() {
+    return true;
+  }
+
+  // Only if someone asks for a table of us anyway: one plain cycle, uncorrected
+  protected void fillTable(final float[] table) {
+    final float dt = 1f / table.length;
+    for (int i = 0; i < table.length; i++)
+      table[i] = amplitude * naive(i * dt);
+  }
+
+  // One cycle of the uncorrected waveform, t from 0 to 1
+  protected abstract float naive(float t);
+
+  // Where in the cycle phase is, from 0 to 1. Only the top 24 bits, which is all a float holds.
+  protected static float toCycle(final int phase) {
+    return (phase >>> 8) * 0x1p-24f;
+  }
+
+  // How far one sample moves us through the cycle
+  protected static float toStep(final int increment) {
+    return Math.abs(increment * 0x1p-32f);
+  }
+
+  /**
+   * The correction for a jump from -1 to 1 at the start of the cycle (t = 0), given how far through
+   * the cycle we are and how far one sample is. 0 unless we're within a sample of the jump.
+   */
+  protected static float polyBlep(final float t, final float dt) {
+    if (t < dt) {
+      final float x = t / dt;
+      return x + x - x * x - 1f;
+    } else if (t > 1f - dt) {
+      final float x = (t - 1f) / dt;
+      return x * x + x + x + 1f;
+    }
+    return 0f;
+  }
+
+  /**
+   * The correction for the slope going up by 1 per sample at the start of the cycle. Scale it by the
+   * actual change in slope per sample. 0 unless we're within a sample of the corner.
+   */
+  protected static float polyBlamp(final float t, final float dt) {
+    if (t < dt) {
+      final float x = 1f - t / dt;
+      return x * x * x * (1f / 6f);
+    } else if (t > 1f - dt) {
+      final float x = 1f + (t - 1f) / dt;
+      return x * x * x * (1f / 6f);
+    }
+    return 0f;
+  }
+
+  // t moved to start at some other point in the cycle, still from 0 to 1
+  protected static float wrap(final float t) {
+    return t - (float) Math.floor(t);
+  }
+}
@@ -0,0 +1,32 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * FIXME this is Pulse now
+ */
+public class Pulse extends BandLimitedOsc {
+  // Fraction of the cycle spent high
+  private static final double DUTY = 0.25;
+
+  public Pulse() {
+    this(1.0f);
+    name = "Pulse";
+  }
+  public Pulse(int phase) {
+    super(phase);
+    name = "Pulse";
+  }
+  public Pulse(float amp) {
+    super(amp);
+    name = "Pulse";
+  }
+
+  protected float getDcOffset() {
+    return (float) (2.0 * DUTY - 1.0);
+  }
+  protected float getCosineCoefficient(int harmonic) {
+    return (float) (2.0 * Math.sin(2.0 * Math.PI * harmonic * DUTY) / (Math.PI * harmonic));
+  }
+  protected float getSineCoefficient(int harmonic) {
+    return (float) (2.0 * (1.0 - Math.cos(2.0 * Math.PI * harmonic * DUTY)) / (Math.PI * harmonic));
+  }
+}
@@ -0,0 +1,31 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+
+/**
+ * Sawtooth wave oscillator
+ * Rises from -amplitude to amplitude over one cycle.
+ */
+public class Saw extends BandLimitedOsc {
+  public Saw() {
+    this(1.0f);
+    name = "Saw";
+  }
+  public Saw(int phase) {
+    super(phase);
+    name = "Saw";
+  }
+  public Saw(float amp) {
+    super(amp);
+    name = "Saw";
+  }
+
+  protected float getDcOffset() {
+    return 0f;
+  }
+  protected float getCosineCoefficient(int harmonic) {
+    return 0f;
+  }
+  protected float getSineCoefficient(int harmonic) {
+    return (float) (-2.0 / (Math.PI * harmonic));
+  }
+}
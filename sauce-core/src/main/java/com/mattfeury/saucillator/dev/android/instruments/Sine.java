@@ -0,0 +1,129 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+/**
+ * Sine wave oscillator
+ *
+ * No table: every block we start a "magic circle" at our exact phase and let it turn, which costs
+ * two multiply-adds a sample. Starting over each block from the integer phase means rounding never
+ * builds up, and frequency and phase changes land exactly. We can still describe ourselves as a table
+ * (fillTable), so timbres made of sines flatten like any other.
+ */
+public class Sine extends BasicOsc {
+  // oscPhase as a fraction of 2^32. Set by fill, which runs before our own initializers would.
+  private int phaseOffset;
+
+  public Sine() {
+    super();
+    name = "Sine";
+  }
+
+  public Sine(int phase) {
+    super(phase);
+    name = "Sine";
+  }
+
+  public Sine(float amp) {
+    super(amp);
+    name = "Sine";
+  }
+
+  // Nothing to build or share, so filling is just picking up our phase
+  @Override
+  public void fill() {
+    dispose();
+    tables = null;
+    phaseOffset = toPhaseOffset(oscPhase);
+  }
+
+  // What getTableFor describes us from. Nothing, if someone drew a table of their own into us.
+  @Override
+  protected String getFilledTableKey() {
+    return (tables == null) ? getClass().getName() + ":" + phaseOffset : null;
+  }
+
+  @Override
+  protected boolean hasWaveform() {
+    return true;
+  }
+
+  @Override
+  public boolean isFlattenable() {
+    return true;
+  }
+
+  // Only FlattenedOsc asks, once each time it builds its tables (which are then shared), so a fresh one is fine
+  @Override
+  protected float[] getTableFor(float cyclesPerSample) {
+    if (tables != null)
+      return tables[0];
+
+    final float[] table = new float[ENTRIES];
+    fillTable(table);
+    return table;
+  }
+
+  // Can't use Math.sin here due to a bug in the galaxy S4. Fuck that...
+  // At amplitude 1, like we render: whoever reads it (FlattenedOsc) applies our amplitude as they go.
+  protected void fillTable(final float[] table) {
+    // From the phase we last filled at, like we render
+    final float dt = (float) (2.0 * Math.PI / table.length),
+                start = (float) (phaseOffset * 2.0 * Math.PI / PHASE_CYCLE);
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (float)Math.sin(i * dt + start);
+    }
+  }
+
+  @Override
+  protected int generate(final float[] buffer, final int offset, final int length, final int phase, final int increment) {
+    // Someone drew a table of their own into us (see fillWithZero)
+    if (tables != null)
+      return super.generate(buffer, offset, length, phase, increment);
+
+    // With y = sin(p) and x = cos(p - w/2), stepping x -= e*y then y += e*x (e = 2 sin(w/2))
+    // moves both exactly w further round, so y stays a sine of amplitude 1.
+    // One circle would have each sample waiting on the last, so we turn four at once, a sample apart
+    // and each stepping four samples (w = 4 * step), and take turns reading them.
+    final double toRadians = 2.0 * Math.PI / PHASE_CYCLE,
+                 start = (phase + phaseOffset) * toRadians,
+                 step = increment * toRadians,
+                 half = 2.0 * step;
+    final float e = (float) (2.0 * Math.sin(half)),
+                gain = amplitude;
+    float y0 = (float) Math.sin(start),
+          y1 = (float) Math.sin(start + step),
+          y2 = (float) Math.sin(start + 2.0 * step),
+          y3 = (float) Math.sin(start + 3.0 * step),
+          x0 = (float) Math.cos(start - half),
+          x1 = (float) Math.cos(start + step - half),
+          x2 = (float) Math.cos(start + 2.0 * step - half),
+          x3 = (float) Math.cos(start + 3.0 * step - half);
+
+    final int end = offset + length;
+    int i = offset;
+    for (; i + 3 < end; i += 4) {
+      buffer[i] += gain * y0;
+      buffer[i + 1] += gain * y1;
+      buffer[i + 2] += gain * y2;
+      buffer[i + 3] += gain * y3;
+
+      x0 -= e * y0;
+      x1 -= e * y1;
+      x2 -= e * y2;
+      x3 -= e * y3;
+      y0 += e * x0;
+      y1 += e * x1;
+      y2 += e * x2;
+      y3 += e * x3;
+    }
+
+    // Whatever's left over is already waiting in the next circles round
+    if (i < end)
+      buffer[i++] += gain * y0;
+    if (i < end)
+      buffer[i++] += gain * y1;
+    if (i < end)
+      buffer[i] += gain * y2;
+
+    return phase + increment * length;
+  }
+}
@@ -12,17 +12,26 @@ public class SingingSaw extends ComplexOsc {
   public SingingSaw() {
     super();
 
-    fundamental = new Sine(0.5f);
-    third = new Sine(0.5f);
-    fifth = new Sine(0.5f);
+    // What these always played at: a table baked at 0.5, read back at 0.5
+    fundamental = new Sine(0.25f);
+    third = new Sine(0.25f);
+    fifth = new Sine(0.25f);
 
     fill(fundamental, third, fifth);
     
     name = "Singing Saw";
   }
 
+  // Our components are chord tones, not harmonics
+  @Override
+  protected boolean canFlatten() {
+    return false;
+  }
+
   public void setFreq(float freq) {
     frequency = freq;
+    // The chord glides and wobbles as one, in proportion to each note
+    getModulation().setTarget(freq);
     fundamental.setFreq(freq);
     third.setFreq(Theory.getFrequencyForScaleNote(Theory.majorScale, freq, 2));
     fifth.setFreq(Theory.getFrequencyForScaleNote(Theory.majorScale, freq, 4));
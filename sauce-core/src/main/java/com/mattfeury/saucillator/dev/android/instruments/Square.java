@@ -0,0 +1,31 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+
+/**
+ * Square wave oscillator
+ */
+public class Square extends BandLimitedOsc {
+  public Square() {
+    this(1.0f);
+    name = "Square";
+  }
+  public Square(int phase) {
+    super(phase);
+    name = "Square";
+  }
+  public Square(float amp) {
+    super(amp);
+    name = "Square";
+  }
+
+  protected float getDcOffset() {
+    return 0f;
+  }
+  protected float getCosineCoefficient(int harmonic) {
+    return 0f;
+  }
+  // Odd harmonics only
+  protected float getSineCoefficient(int harmonic) {
+    return (harmonic % 2 == 0) ? 0f : (float) (4.0 / (Math.PI * harmonic));
+  }
+}
@@ -0,0 +1,61 @@
+package com.mattfeury.saucillator.dev.android.instruments;
+
+import java.util.HashMap;
+
+/**
+ * Process-wide cache of wavetables.
+ *
+ * Every Sine with the same phase and amplitude has the exact same table, so there's no
+ * reason for each voice to build and hold its own 32768 floats. Tables are keyed by
+ * BasicOsc.getTableKey() and reference counted: the first osc to ask for a key builds it,
+ * everyone after shares it, and it's dropped once the last one releases it.
+ *
+ * Each entry is a set of tables. Most oscillators have just the one, band limited
+ * oscillators have one per octave.
+ *
+ * Shared tables are read-only. Never write into a table you got from here.
+ */
+public final class WavetableCache {
+  private static final HashMap<String, Entry> tables = new HashMap<String, Entry>();
+
+  private static class Entry {
+    final float[][] tables;
+    int references = 0;
+
+    Entry(float[][] tables) {
+      this.tables = tables;
+    }
+  }
+
+  private WavetableCache() {}
+
+  /**
+   * Get the tables for key, asking osc to build them if nobody has them yet.
+   * Every acquire must eventually be matched by a release.
+   */
+  public static synchronized float[][] acquire(String key, BasicOsc osc) {
+    Entry entry = tables.get(key);
+    if (entry == null) {
+      entry = new Entry(osc.buildTables());
+      tables.put(key, entry);
+    }
+
+    entry.references++;
+    return entry.tables;
+  }
+
+  public static synchronized void release(String key) {
+    Entry entry = tables.get(key);
+    if (entry == null)
+      return;
+
+    entry.references--;
+    if (entry.references <= 0)
+      tables.remove(key);
+  }
+
+  // How many distinct tables are alive right now
+  public static synchronized int size() {
+    return tables.size();
+  }
+}
@@ -0,0 +1,76 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+/**
+ * How an engine renders: its sample rate and how many frames it renders at a time (its block size).
+ *
+ * Smaller blocks mean less latency but more overhead per sample, so this is picked per device
+ * when the AudioEngine is built. Modulation (LFOs and glide) is worked out every control period
+ * frames and interpolated in between, whatever the block size. Every UGen in the graph is prepared with its Dac's config
+ * (see UGen.prepare) and derives its coefficients and buffer sizes from it.
+ */
+public final class AudioConfig {
+  public static final int DEFAULT_SAMPLE_RATE = 11025 * 2,
+                          DEFAULT_BLOCK_SIZE = 256, //formerly 1024
+                          DEFAULT_CONTROL_PERIOD = 32;
+
+  public static final AudioConfig DEFAULT = new AudioConfig(DEFAULT_SAMPLE_RATE, DEFAULT_BLOCK_SIZE);
+
+  // Control rate things (LFOs, glide, envelopes) were tuned stepping once per block with the defaults.
+  // They now step by how many of those blocks have gone by, so they sound the same at any config.
+  private static final double REFERENCE_BLOCK_SECONDS = (double) DEFAULT_BLOCK_SIZE / DEFAULT_SAMPLE_RATE;
+
+  private final int sampleRate, blockSize, controlPeriod;
+  private final float referenceBlocksPerFrame;
+
+  public AudioConfig(int sampleRate, int blockSize) {
+    this(sampleRate, blockSize, DEFAULT_CONTROL_PERIOD);
+  }
+  public AudioConfig(int sampleRate, int blockSize, int controlPeriod) {
+    if (sampleRate <= 0 || blockSize <= 0 || controlPeriod <= 0)
+      throw new IllegalArgumentException("Bad audio config: " + sampleRate + "Hz, " + blockSize + " frames, control every " + controlPeriod);
+
+    this.sampleRate = sampleRate;
+    this.blockSize = blockSize;
+    this.controlPeriod = controlPeriod;
+    referenceBlocksPerFrame = (float) (1.0 / (REFERENCE_BLOCK_SECONDS * sampleRate));
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  // How many frames go by between control points (see Modulation). Needn't divide the block size.
+  public int getControlPeriod() {
+    return controlPeriod;
+  }
+
+  // How long a block lasts in real time. Rendering one has to take less than this.
+  public long getBlockNanos() {
+    return (long) blockSize * 1000000000L / sampleRate;
+  }
+
+  // How many default sized blocks this many frames lasts. See REFERENCE_BLOCK_SECONDS.
+  public float toReferenceBlocks(int frames) {
+    return frames * referenceBlocksPerFrame;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (! (o instanceof AudioConfig))
+      return false;
+
+    AudioConfig that = (AudioConfig) o;
+    return sampleRate == that.sampleRate && blockSize == that.blockSize && controlPeriod == that.controlPeriod;
+  }
+  @Override
+  public int hashCode() {
+    return 31 * (31 * sampleRate + blockSize) + controlPeriod;
+  }
+  @Override
+  public String toString() {
+    return blockSize + " frames at " + sampleRate + "Hz, control every " + controlPeriod;
+  }
+}
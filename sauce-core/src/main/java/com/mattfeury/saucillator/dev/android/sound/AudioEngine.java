@@ -0,0 +1,518 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.instruments.InstrumentLoader;
+import com.mattfeury.saucillator.dev.android.instruments.Theory;
+import com.mattfeury.saucillator.dev.android.instruments.Theory.Scale;
+
+public class AudioEngine {
+  /**
+   * Whoever is running the engine (e.g. SauceEngine). Called from the audio thread.
+   */
+  public interface Listener {
+    // Called once the graph is built and ticking (or has given up trying)
+    public void audioInitialized();
+    public void audioError(String message);
+  }
+
+  private int note = 0;
+  private int octave = 4;
+  //private String scaleId = Theory.allScales[0].toString();
+  public static int[] scale = Theory.pentatonicScale;
+
+  // Delay rates are in samples at the default rate (so up to a second), whatever the engine runs at. See Delay.
+  public final static int DELAY_RATE_MIN = 0, DELAY_RATE_MAX = AudioConfig.DEFAULT_SAMPLE_RATE;
+  // Seconds of silence before the audio thread goes idle. Longer than the longest delay (a second), so echoes aren't cut off.
+  public final static float DEFAULT_IDLE_TAIL = 2f;
+  public final static int MOD_RATE_MIN = 0, MOD_RATE_MAX = 20;
+  public final static int MOD_DEPTH_MIN = 0, MOD_DEPTH_MAX = 1000;
+
+  public final static float DEFAULT_LAG = 0.5f; // i don't think this is used...
+
+  public final static int DEFAULT_POLYPHONY = 10; // one for each finger
+  // Once this many voices are sounding, spread them over the spare cores (if there are any). 0 never does.
+  public final static int DEFAULT_PARALLEL_VOICES = 6;
+
+  private final static String defaultInstrument = "Starslide";
+
+  // synth elements
+  private Dac dac;
+  private Looper looper;
+  private ParametricEQ eq;
+
+  // Rebuilt whenever the instrument changes. Fingers borrow voices from here.
+  private volatile VoicePool voices;
+  private int polyphony = DEFAULT_POLYPHONY;
+  private VoicePool.StealPolicy stealPolicy = VoicePool.StealPolicy.OLDEST;
+  private int parallelVoices = DEFAULT_PARALLEL_VOICES;
+
+  private final Listener listener;
+  private final InstrumentLoader instruments;
+  private final AudioSink sink;
+  private final AudioConfig config;
+
+  private DacThread thread;
+
+  // Timbre edits on their way to the voices (see updateOscillatorProperty)
+  private final TimbreUpdates timbreUpdates = new TimbreUpdates();
+
+  // The currentOscillator is never actually heard
+  // It is kept as a template and updated anytime an instrument is edited/created
+  // The voice pool is filled with copies of it for actually playing.
+  public static ComplexOsc currentOscillator;
+
+  public AudioEngine(InstrumentLoader instruments, AudioSink sink, Listener listener, final Object mutex) {
+    this(AudioConfig.DEFAULT, instruments, sink, listener, mutex);
+  }
+  public AudioEngine(AudioConfig config, InstrumentLoader instruments, AudioSink sink, Listener listener, final Object mutex) {
+    this.config = config;
+    this.instruments = instruments;
+    this.sink = sink;
+    this.listener = listener;
+
+    currentOscillator = instruments.getInstrument(defaultInstrument);
+
+    thread = new DacThread(mutex);
+    thread.start();
+  }
+
+  /**
+   * Ticks the Dac, but only while there's something to tick for. The thread parks (and pauses the sink)
+   * while we're paused, and also once everything has been silent for longer than the idle tail
+   * and nothing else needs the clock (looping or recording). Posting anything wakes it right back up.
+   */
+  class DacThread extends Thread {
+      Object mutex;
+      public DacThread(final Object mutex) {
+          this.mutex = mutex;
+      }
+
+      // What we park on. Guards shouldTick.
+      private final Object lock = new Object();
+      private boolean shouldTick = true;
+      // Set while parked so posters know to notify. Volatile so it pairs with the queue's write index:
+      // either the poster sees we're asleep or we see what they posted before waiting.
+      private volatile boolean sleeping = false;
+      private volatile float idleTail = DEFAULT_IDLE_TAIL;
+      // Audio thread only
+      private long silentFrames = 0;
+
+      public void stopTicking() {
+          synchronized(lock) {
+              shouldTick = false;
+              lock.notify();
+          }
+      }
+      public void startTicking() {
+          synchronized(lock) {
+              shouldTick = true;
+              lock.notify();
+          }
+      }
+      // Something was posted. Cheap if we're awake.
+      public void wake() {
+          if (sleeping) {
+              synchronized(lock) {
+                  lock.notify();
+              }
+          }
+      }
+
+      private boolean isIdle() {
+          return silentFrames >= idleTail * config.getSampleRate() &&
+              dac.getParameters().size() == 0 &&
+              ! isLooping() &&
+              ! dac.isRecording();
+      }
+
+      private void waitForWork() throws InterruptedException {
+          synchronized(lock) {
+              if (shouldTick && ! isIdle())
+                  return;
+
+              sleeping = true;
+              dac.getSink().pause();
+              while (! shouldTick || isIdle()) {
+                  lock.wait();
+              }
+              sleeping = false;
+          }
+
+          // Whatever woke us gets a fresh tail. A note's first block is often silent while it attacks.
+          silentFrames = 0;
+          dac.getSink().resume();
+      }
+
+      public void run() {
+        try {
+          synchronized(mutex) {
+            dac = new Dac(config, sink);
+            applyParallelVoices();
+            looper = new Looper();
+
+            eq = new ParametricEQ();
+            eq.chuck(dac);
+            looper.chuck(eq);
+
+            rebuildVoices(null);
+
+            dac.open();
+
+            listener.audioInitialized();
+            mutex.notify();
+          }
+
+          final int blockSize = config.getBlockSize();
+          while (true) {
+              waitForWork();
+
+              dac.tick();
+              silentFrames = dac.wasSilent() ? silentFrames + blockSize : 0;
+          }
+        } catch (InterruptedException ex) {
+          dac.close();
+        } catch (Exception ex) {
+          ex.printStackTrace();
+          dac.close();
+
+          listener.audioInitialized();
+          mutex.notify();
+
+          listener.audioError("bad time " + ex.toString());
+        }
+      }
+  };
+
+  public boolean isPlaying() {
+    return dac.isPlaying();
+  }
+
+  public AudioConfig getConfig() {
+    return config;
+  }
+
+  public void pauseDac() {
+      thread.stopTicking();
+  }
+  public void playDac() {
+      thread.startTicking();
+  }
+
+  // Seconds of silence before the audio thread goes idle. Keep it longer than any gap between echoes.
+  public void setIdleTail(float seconds) {
+      thread.idleTail = Math.max(0, seconds);
+  }
+  public float getIdleTail() {
+      return thread.idleTail;
+  }
+
+  public int getParallelVoices() {
+      return parallelVoices;
+  }
+  // How many voices have to be sounding before they're rendered on more than one core. 0 to always use one.
+  public void setParallelVoices(int voices) {
+      parallelVoices = Math.max(0, voices);
+      if (dac != null)
+          applyParallelVoices();
+  }
+  private void applyParallelVoices() {
+      final int threads = (parallelVoices > 0) ? RenderWorkers.getDefaultThreadCount() : 0;
+      dac.setParallelRendering(threads, parallelVoices);
+  }
+
+  public boolean isLooping() {
+      // Looper.isPlaying() isn't used. Oops! :/
+      return looper.recording || looper.defined;
+  }
+
+  /**
+   * Anything the audio thread is rendering is changed by posting to the Dac's ParameterQueue
+   * rather than calling setters on it directly. These are stamped with the current frame
+   * so they're heard a steady block after they happen. UI thread only (the queue has a single producer).
+   * Posting also wakes the audio thread if it's gone idle.
+   */
+  private void post(UGen target, int param, float value) {
+    dac.getParameters().post(target, param, value, dac.getFrameForNow());
+    thread.wake();
+  }
+
+  // Hmm.... should fx things be here?
+  public void toggleLooperRecording() {
+    post(looper, Looper.TOGGLE_RECORDING, 0);
+  }
+
+  public void resetLooper() {
+    post(looper, Looper.RESET, 0);
+  }
+
+  public void undoLooper() {
+    post(looper, Looper.UNDO, 0);
+  }
+
+  // Read only. Use updateEq to change it.
+  public ParametricEQ getEq() {
+    return this.eq;
+  }
+  // See ParametricEQ.FREQUENCY etc
+  public void updateEq(int param, float value) {
+    post(eq, param, value);
+  }
+
+  // Off by default. See RenderMetrics.
+  public void setMetricsEnabled(boolean enabled) {
+    dac.setMetrics(enabled ? new RenderMetrics(config) : null);
+  }
+  public boolean isMetricsEnabled() {
+    return dac.getMetrics() != null;
+  }
+  public String getMetricsReport() {
+    return dac.getMetricsReport();
+  }
+  public void resetMetrics() {
+    RenderMetrics metrics = dac.getMetrics();
+    if (metrics != null)
+      metrics.reset();
+  }
+
+  public void stopAllOscillators() {
+    // Note ons may still be queued, so let go of everyone. Those that are quiet already ignore it.
+    for (ComplexOsc osc : voices.getVoices())
+      noteOff(osc);
+
+    // Everyone's let go
+    voices.releaseAll();
+  }
+
+  public static ComplexOsc getCurrentOscillator() {
+    return currentOscillator;
+  }
+
+  public ComplexOsc optOscillator(int id) {
+    return voices.get(id);
+  }
+
+  /**
+   * Hand the finger with this id a voice from the pool. Nothing is built or copied here.
+   * Give it back with releaseOscillator once the finger lifts.
+   */
+  public ComplexOsc acquireOscillator(int id) {
+    return voices.acquire(id);
+  }
+
+  public void releaseOscillator(int id) {
+    voices.release(id);
+  }
+
+  public int getPolyphony() {
+    return polyphony;
+  }
+  public void setPolyphony(int polyphony) {
+    if (polyphony < 1 || polyphony == this.polyphony)
+      return;
+
+    this.polyphony = polyphony;
+    rebuildVoices(null);
+  }
+  public VoicePool.StealPolicy getStealPolicy() {
+    return stealPolicy;
+  }
+  public void setStealPolicy(VoicePool.StealPolicy stealPolicy) {
+    this.stealPolicy = stealPolicy;
+    voices.setStealPolicy(stealPolicy);
+  }
+
+  /**
+   * Build a full pool of voices from the currentOscillator and swap it into the graph.
+   * This is the expensive part (each voice is a copy of the instrument) so it only happens
+   * when the instrument or polyphony changes, never on touch.
+   *
+   * If first is given, it is used as the first voice rather than a copy.
+   */
+  private void rebuildVoices(ComplexOsc first) {
+    ComplexOsc[] oscs = new ComplexOsc[polyphony];
+    boolean copyFailed = false;
+    for (int i = 0; i < polyphony; i++) {
+      ComplexOsc osc = (i == 0 && first != null) ? first : instruments.copyInstrument(currentOscillator);
+      if (osc == null) {
+        osc = instruments.getInstrument("Sine");
+        copyFailed = true;
+      }
+      oscs[i] = osc;
+    }
+
+    if (copyFailed)
+      listener.audioError("Error: Unable to duplicate instrument");
+
+    VoicePool oldVoices = voices;
+    if (oldVoices != null)
+      for (ComplexOsc osc : oldVoices.getVoices()) {
+        osc.unchuck(looper);
+        osc.dispose();
+      }
+
+    for (ComplexOsc osc : oscs)
+      osc.chuck(looper);
+
+    voices = new VoicePool(oscs, stealPolicy);
+    dac.recompile();
+
+    // Ensure new voices have up-to-date settings
+    updateBaseFreq();
+  }
+
+  public void updateAmplitude(int id, float amp) {
+    ComplexOsc osc = optOscillator(id);
+
+    if (osc != null)
+      updateAmplitude(osc, amp);
+  }
+
+  public void updateFrequency(int id, int offset) {
+    ComplexOsc osc = optOscillator(id);
+
+    if (osc != null)
+      updateFrequency(osc, offset);
+  }
+
+  // For whoever is holding a voice (e.g. a finger)
+  public void noteOn(ComplexOsc osc) {
+    post(osc, ComplexOsc.NOTE_ON, 0);
+  }
+  public void noteOff(ComplexOsc osc) {
+    post(osc, ComplexOsc.NOTE_OFF, 0);
+  }
+  public void updateAmplitude(ComplexOsc osc, float amp) {
+    post(osc, ComplexOsc.AMPLITUDE, amp);
+  }
+  public void updateFrequency(ComplexOsc osc, int offset) {
+    // The voice may not have its base frequency yet, but the template always does
+    post(osc, ComplexOsc.FREQUENCY, currentOscillator.getFreqByOffset(scale, offset));
+  }
+
+  /**
+   * Change an effect/envelope setting (ComplexOsc.MOD_RATE etc) on the instrument and every voice.
+   * The template isn't rendered so it is updated right away.
+   */
+  public void updateOscillatorParameter(int param, float value) {
+    currentOscillator.setParameter(param, value);
+
+    for (ComplexOsc osc : voices.getVoices())
+      post(osc, param, value);
+  }
+
+  /**
+   * For everything else (timbre edits, swapping components). The updater runs on the template right away,
+   * then on the audio thread for each voice, in order with every other change posted. So live voices are only
+   * ever changed by the thread rendering them. Any tables the edit needs are built here first with the
+   * template's, so the voices find them in the WavetableCache.
+   */
+  public void updateOscillatorProperty(OscillatorUpdater updater) {
+    updater.update(currentOscillator);
+
+    final VoicePool voices = this.voices;
+    if (! timbreUpdates.add(updater, voices))
+      return;
+
+    if (dac.getParameters().post(timbreUpdates, TimbreUpdates.APPLY, 0, dac.getFrameForNow()))
+      thread.wake();
+    else
+      timbreUpdates.cancel(updater);
+  }
+
+  /**
+   * Applies OscillatorUpdaters to voices on the audio thread, one per APPLY posted through the ParameterQueue.
+   * Never part of the graph. Updaters may edit it (swapping components), and the Dac recompiles when they do.
+   */
+  private final class TimbreUpdates extends UGen {
+    static final int APPLY = 0;
+
+    // Each updater along with the pool it was posted for. If the voices have been rebuilt since,
+    // they're copies of the template, which already has the edit.
+    private final ConcurrentLinkedQueue<Update> pending = new ConcurrentLinkedQueue<Update>();
+
+    private final class Update {
+      final OscillatorUpdater updater;
+      final VoicePool pool;
+
+      Update(OscillatorUpdater updater, VoicePool pool) {
+        this.updater = updater;
+        this.pool = pool;
+      }
+    }
+
+    boolean add(OscillatorUpdater updater, VoicePool pool) {
+      return pool != null && pending.add(new Update(updater, pool));
+    }
+    // Take one back (its APPLY didn't fit in the queue)
+    void cancel(OscillatorUpdater updater) {
+      for (Update update : pending)
+        if (update.updater == updater)
+          pending.remove(update);
+    }
+
+    @Override
+    public void setParameter(int param, float value) {
+      final Update update = pending.poll();
+      if (update == null || update.pool != voices)
+        return;
+
+      for (ComplexOsc osc : update.pool.getVoices())
+        update.updater.update(osc);
+    }
+
+    protected boolean process(final float[] input, final float[] output, final int offset, final int length, boolean kidsDidWork) {
+      return kidsDidWork;
+    }
+  }
+
+  public void updateBaseNote(int note) {
+    if (note >= 0 && note < Theory.notes.length)
+      updateBaseFreq(note, this.octave);
+  }
+
+  public void updateBaseOctave(int octave) {
+    updateBaseFreq(this.note, octave);
+  }
+
+  public void updateBaseFreq(int note, int octave) {
+    this.note = note;
+    this.octave = octave;
+
+    updateBaseFreq();
+  }
+
+  public void updateBaseFreq() {
+    float newFreq = Theory.getFrequencyForNote(note + 1, octave);
+    updateOscillatorParameter(ComplexOsc.BASE_FREQUENCY, newFreq);
+  }
+
+  public void setOscillator(ComplexOsc newOsc) {
+    ComplexOsc oldTemplate = currentOscillator;
+    currentOscillator = instruments.copyInstrument(newOsc);
+    rebuildVoices(newOsc);
+
+    if (oldTemplate != null)
+      oldTemplate.dispose();
+  }
+
+  public void setScaleById(String scaleId) {
+    if (scaleId.equals(Scale.PENTATONIC.toString())) {
+      scale = Theory.pentatonicScale;
+    } else if (scaleId.equals(Scale.MAJOR.toString())) {
+      scale = Theory.majorScale;
+    } else if (scaleId.equals(Scale.MINOR.toString())) {
+      scale = Theory.minorScale;
+    } else if (scaleId.equals(Scale.MINOR_BLUES.toString())) {
+      scale = Theory.minorBluesScale;
+    } else {
+      scale = Theory.chromaticScale;
+    }
+  }
+
+  // See WavWriter.getLastFile for where it ended up
+  public boolean toggleRecording() {
+    return dac.toggleRecording();
+  }
+}
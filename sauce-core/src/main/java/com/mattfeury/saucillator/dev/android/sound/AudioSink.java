@@ -0,0 +1,26 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+/**
+ * Wherever the Dac sends its samples: the speaker, a file, nowhere at all.
+ *
+ * Samples are 16 bit mono PCM at the config's sample rate, a block at a time. Sinks backed by a device
+ * (like AudioTrack) block in write() until there is room, which is what paces the audio
+ * thread. Sinks that don't block let the graph run as fast as the CPU allows.
+ */
+public interface AudioSink {
+  // Called once before the first write
+  public void open(AudioConfig config);
+
+  public void write(short[] samples, int length);
+
+  // How many times playback has run dry so far, or -1 if this sink can't tell
+  public int getUnderrunCount();
+
+  // Nothing will be written for a while (the audio thread is parked). Sinks backed by a device can let it rest.
+  public void pause();
+  // Called before the first write after a pause
+  public void resume();
+
+  // Flush and let go of whatever we hold. Safe to call even if open() was never called.
+  public void close();
+}
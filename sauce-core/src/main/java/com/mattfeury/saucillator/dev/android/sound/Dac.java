@@ -0,0 +1,283 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * A Digital to Analog converter
+ * This hands digital samples off to an AudioSink (usually an AudioTrack, see AudioTrackSink).
+ * You can "chuck" any UGen to this to route its sound to the DAC.
+ * 
+ * Many thanks to code by Adam Smith (EtherealDialpad) for helping me get started here.
+ */
+public class Dac extends UGen {
+  private final float[] localBuffer;
+  private boolean isClean, playing;
+  private final AudioSink sink;
+  private final RenderAheadSink renderAhead; // sink, if we're rendering ahead. For metrics.
+  private final short [] target;
+  private final short [] silentTarget;
+  boolean recording = false;
+  private final AtomicReference<RenderPlan> plan = new AtomicReference<RenderPlan>();
+  // Every plan we compile borrows its scratch buffers from here
+  private final ScratchArena scratch;
+  // Helpers for rendering voices in parallel, and how many have to be sounding before we bother. See setParallelRendering.
+  private volatile RenderWorkers workers = null;
+  private volatile int parallelVoices = 0;
+  private volatile RenderMetrics metrics = null;
+  private final ParameterQueue parameters = new ParameterQueue(ParameterQueue.DEFAULT_CAPACITY);
+
+  // Our sample clock. nextFrame is only touched by the audio thread, the other two are published
+  // at the start of every block (nanos first) so other threads can work out where "now" is.
+  private long nextFrame = 0;
+  private volatile long blockFrame = 0, blockNanos = 0;
+
+  // Loudest sample of the last block we ticked (after limiting), 0 if it was skipped as clean
+  private float lastPeak = 0;
+	
+	public Dac(AudioSink sink) {
+		this(AudioConfig.DEFAULT, sink);
+	}
+	// Everything chucked to us is prepared with config when we compile (see RenderPlan)
+	public Dac(AudioConfig config, AudioSink sink) {
+		playing = false;
+		prepare(config);
+		localBuffer = new float[config.getBlockSize()];
+		scratch = new ScratchArena(config);
+		target = new short[config.getBlockSize()];
+		silentTarget = new short[config.getBlockSize()];
+		this.sink = sink;
+		renderAhead = (sink instanceof RenderAheadSink) ? (RenderAheadSink) sink : null;
+	}
+
+	public ScratchArena getScratch() {
+		return scratch;
+	}
+
+	/**
+	 * Render voices on this many extra threads whenever at least minVoices of them are sounding at once.
+	 * The output is exactly the same as rendering them all on the audio thread, just sooner.
+	 * 0 threads renders everything on the audio thread. Replaces (and shuts down) any workers from before.
+	 */
+	public void setParallelRendering(int threads, int minVoices) {
+		final RenderWorkers previous = workers;
+		parallelVoices = minVoices;
+		workers = (threads > 0) ? new RenderWorkers(threads) : null;
+
+		// Safe even mid block: whatever it was helping with, the audio thread finishes itself
+		if (previous != null)
+			previous.shutdown();
+	}
+	public int getParallelThreads() {
+		final RenderWorkers workers = this.workers;
+		return (workers != null) ? workers.getThreadCount() : 0;
+	}
+	public int getParallelVoices() {
+		return parallelVoices;
+	}
+
+	public AudioSink getSink() {
+		return sink;
+	}
+
+	// Post parameter changes for anything in our graph here. They're applied on the frame they're posted for.
+	public ParameterQueue getParameters() {
+		return parameters;
+	}
+
+	// The first frame of the block we're rendering (or last rendered)
+	public long getFrame() {
+		return blockFrame;
+	}
+
+	/**
+	 * The frame an event happening right now should land on.
+	 *
+	 * Blocks are rendered in bursts, one block ahead of what's being heard. So rather than apply a change
+	 * at the start of whichever block comes next (which jitters by up to a block depending on when the
+	 * touch came in), we keep the time since the last block started and play it that far into the next
+	 * one. Everything is a fixed block late instead of somewhere between zero and a block.
+	 */
+	public long getFrameForNow() {
+		long frame, nanos;
+		do {
+			frame = blockFrame;
+			nanos = blockNanos;
+		} while (frame != blockFrame); // a block started while we were reading
+
+		if (nanos == 0)
+			return frame;
+
+		final int blockSize = config.getBlockSize();
+		final long elapsed = (System.nanoTime() - nanos) * config.getSampleRate() / 1000000000L;
+		return frame + blockSize + Math.max(0, Math.min(elapsed, blockSize - 1));
+	}
+
+	/**
+	 * Start keeping RenderMetrics (or stop, if null). Timing every UGen isn't free, so this is off by default.
+	 */
+	public void setMetrics(RenderMetrics metrics) {
+		this.metrics = metrics;
+	}
+	public RenderMetrics getMetrics() {
+		return metrics;
+	}
+	// Everything the current metrics know, including per UGen timings for the graph as it is now
+	public String getMetricsReport() {
+		final RenderMetrics metrics = this.metrics;
+		return (metrics != null) ? metrics.report(plan.get()) : "Render metrics are off.";
+	}
+
+  public void record() {
+    if ( ! recording) {
+      WavWriter.clear();
+      WavWriter.setSampleRate(config.getSampleRate());
+      recording = true;
+    }
+  }
+  public void stopRecording() {
+    if (recording) {
+      recording = false;
+      WavWriter.writeWav();
+    }
+  }
+  public boolean toggleRecording() {
+    if (recording) stopRecording();
+    else record();
+    return recording;
+  }
+	
+	public boolean render(final float[] _buffer) {
+		if(!isClean) {
+			zeroBuffer(localBuffer);
+
+			isClean = true;
+		}
+
+		// Graph edits should have already published a fresh plan via recompile().
+		// If one slipped through, compile it here rather than render a stale graph.
+		RenderPlan current = plan.get();
+		if (current == null || current.isStale()) {
+			RenderPlan compiled = RenderPlan.compile(this, scratch);
+			current = plan.compareAndSet(current, compiled) ? compiled : plan.get();
+		}
+
+		final RenderMetrics metrics = this.metrics;
+		if (metrics != null && metrics.consumeReset())
+			current.resetTimings();
+
+		final long blockStart = nextFrame;
+		blockNanos = System.nanoTime();
+		blockFrame = blockStart;
+
+		// Render up to each change, apply it, and carry on from there
+		final int blockSize = config.getBlockSize();
+		boolean didWork = false;
+		int offset = 0;
+		while (offset < blockSize) {
+			// Some changes edit the graph (see AudioEngine.updateOscillatorProperty). Pick that up before rendering on.
+			if (parameters.applyUntil(blockStart + offset) > 0 && current.isStale()) {
+				final RenderPlan compiled = RenderPlan.compile(this, scratch);
+				current = plan.compareAndSet(current, compiled) ? compiled : plan.get();
+			}
+
+			final int end = (int) Math.min(parameters.peekFrame() - blockStart, blockSize);
+			if (end <= offset)
+				continue; // posted for a frame we're already past while we were looking
+
+			didWork |= current.render(localBuffer, offset, end - offset, metrics != null, workers, parallelVoices);
+			offset = end;
+		}
+		nextFrame = blockStart + blockSize;
+
+		isClean = !didWork;
+		return !isClean; // we did some work if the buffer isn't clean
+	}
+
+	/**
+	 * Compile the graph on the calling thread and hand it to the audio thread.
+	 * Call this after chucking/unchucking so the audio thread never has to compile.
+	 */
+	public void recompile() {
+		plan.set(RenderPlan.compile(this, scratch));
+	}
+
+	// We're the root of the graph, so this is only hit if someone chucks a Dac into something else
+	protected boolean process(final float[] input, final float[] output, final int offset, final int length, boolean kidsDidWork) {
+		return kidsDidWork;
+	}
+	
+	public void open() {
+		sink.open(config);
+		playing = true;
+	}
+	
+	public boolean isPlaying() {
+		return playing;
+	}
+
+  public boolean isRecording() {
+    return recording;
+  }
+
+	public void toggle() {
+		playing = !playing;
+	}
+	
+	public void tick() {
+		final RenderMetrics metrics = this.metrics;
+		final long start = (metrics != null) ? System.nanoTime() : 0;
+
+		render(localBuffer);
+
+		final short[] output;
+		if(isClean || !playing) {
+      // sleeping is messy, so lets just queue this silent buffer
+      output = silentTarget;
+      lastPeak = 0;
+      if (recording) {
+        for(int i = 0; i < target.length; i++) {
+          WavWriter.pushShort((short)0);
+        }
+      }
+    } else {
+      lastPeak = Limiter.limit(localBuffer);
+      DspKernels.floatToPcm16(localBuffer, 0, target, 0, target.length);
+
+      if (recording) {
+        try {
+          //Write dat shit into dat wav buffa.
+          for(int i = 0; i < target.length; i++)
+            WavWriter.pushShort(target[i]);
+        } catch (Exception e) {
+          // Something bad happened. Try to write the wav and bail.
+          // This is often an OutOfMemory error. Will it still write it?
+          WavWriter.writeWav();
+          recording = false;
+        }
+      }
+
+      output = target;
+		}
+
+		// Everything up to here has to beat the deadline. The write itself blocks until the sink has room
+		// (or, when rendering ahead, until there's room in the queue).
+		if (metrics != null)
+			metrics.recordTick(System.nanoTime() - start, sink.getUnderrunCount());
+
+		sink.write(output, output.length);
+
+		// How much slack we have left, counting the block we just queued
+		if (metrics != null && renderAhead != null)
+			metrics.recordQueue(renderAhead.getQueued(), renderAhead.getDepth(), renderAhead.getStarvedCount());
+	}
+	
+	// Audio thread only. Whether the last tick was silent to the ear (and to the sink).
+	public boolean wasSilent() {
+		return lastPeak < SILENCE;
+	}
+	
+	public void close() {
+		setParallelRendering(0, 0);
+		sink.close();
+	}
+}
@@ -0,0 +1,100 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.Arrays;
+
+/**
+ * Creates a delay effect by repeating samples
+ *
+ * The rate (length) is counted in samples at the default sample rate so instruments sound the same
+ * at any config. It is up to a second long (AudioEngine.DELAY_RATE_MAX).
+ */
+public class Delay extends UGen {
+	float[] line;
+	int pointer;
+	int length;
+	int frames; // length at our actual sample rate
+	// How many samples in a row we've written to the line below SILENCE. Once it's the whole line, we're quiet.
+	int silentRun = 0;
+  private float decay = 0.5f;
+	boolean enabled = true;
+	
+	public Delay(int length) {
+		super();
+		line = new float[config.getSampleRate()];
+		setRate(length);
+	}
+
+	@Override
+	public void prepare(AudioConfig config) {
+		super.prepare(config);
+		line = new float[config.getSampleRate()];
+		pointer = 0;
+		frames = 0;
+		setRate(length);
+	}
+
+  public float getDecay() {
+    return decay;
+  }
+  public void setDecay(float decay) {
+    this.decay = decay;
+  }
+  public int getRate() {
+    return length;
+  }
+  public void setRate(int length) {
+		this.length = length;
+		final int previous = frames;
+		frames = (int) Math.min((long) length * config.getSampleRate() / AudioConfig.DEFAULT_SAMPLE_RATE, line.length);
+
+		if (silentRun >= previous) {
+			// Quiet already. Clear whatever a longer line now reaches back over so we stay that way.
+			if (frames > previous)
+				Arrays.fill(line, previous, frames, 0);
+			silentRun = frames;
+		} else {
+			// Still echoing, and we can't tell which of the old samples are still in the line. Start counting over.
+			silentRun = 0;
+		}
+  }
+  public void enable() {
+  	enabled = true;
+  }
+  public void disable() {
+  	enabled = false;
+  }
+  public boolean isEnabled() {
+  	return enabled;
+  }
+
+	// Quiet once the echoes have died away
+	@Override
+	public boolean isQuiet() {
+		return frames == 0 || ! enabled || silentRun >= frames;
+	}
+	
+	protected boolean process(final float[] input, final float[] buffer, final int offset, final int length, boolean kidsDidWork) {
+    final int frames = this.frames;
+    if (frames == 0 || ! enabled)
+      return kidsDidWork;
+
+		final boolean echoing = silentRun < frames;
+		final float[] localLine = line;
+		int silentRun = this.silentRun;
+		for(int i = offset; i < offset + length; i++) {
+      final float sample = buffer[i] - decay*localLine[pointer];
+      buffer[i] = sample;
+      localLine[pointer] = sample;
+      pointer = (pointer+1)%frames;
+
+      if (sample < SILENCE && sample > -SILENCE)
+        silentRun++;
+      else
+        silentRun = 0;
+		}
+		// Only how it compares to frames matters, and it mustn't overflow on a long silent note
+		this.silentRun = Math.min(silentRun, frames);
+		
+		return kidsDidWork || echoing;
+	}
+}
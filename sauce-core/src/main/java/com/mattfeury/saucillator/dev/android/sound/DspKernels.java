@@ -0,0 +1,144 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.Arrays;
+
+/**
+ * The inner loops every UGen shares: clearing, mixing, gain (fixed or per sample), peaks and conversion to 16 bit PCM.
+ *
+ * Everything here works on a run of a primitive array (offset up to offset + length), never allocates,
+ * and is exact: a kernel gives the same samples whichever backend runs it, so swapping backends never
+ * changes what we render. Keep the hot loops of new UGens going through here where they can.
+ *
+ * The default backend is plain counted loops with nothing in them but the arithmetic, which is the shape
+ * HotSpot's C2 and ART both know how to auto-vectorize. On a desktop JVM with the optional sauce-vector
+ * module on the classpath (and --add-modules jdk.incubator.vector) we pick up its Vector API backend instead.
+ * -Dsaucillator.kernels=scalar forces the plain loops.
+ */
+public final class DspKernels {
+  public interface Backend {
+    public String getName();
+
+    // buffer = 0
+    public void clear(float[] buffer, int offset, int length);
+    // dst += src
+    public void mixAdd(float[] dst, int dstOffset, float[] src, int srcOffset, int length);
+    // buffer *= gain
+    public void scale(float[] buffer, int offset, int length, float gain);
+    // dst += gain * src (a multiply then an add; never fused, so it rounds like the plain loop)
+    public void scaleAdd(float[] dst, int dstOffset, float[] src, int srcOffset, int length, float gain);
+    // dst *= src (e.g. a gain for every sample)
+    public void multiply(float[] dst, int dstOffset, float[] src, int srcOffset, int length);
+    // The largest absolute value, 0 if length is 0
+    public float peak(float[] buffer, int offset, int length);
+    // Clipped to [-1, 1] and scaled to signed 16 bit, truncating like a cast
+    public void floatToPcm16(float[] src, int srcOffset, short[] dst, int dstOffset, int length);
+  }
+
+  public static final String BACKEND_PROPERTY = "saucillator.kernels",
+                             SCALAR = "scalar",
+                             VECTOR_BACKEND = "com.mattfeury.saucillator.dev.android.vector.VectorKernels";
+
+  private static final Backend backend = loadBackend();
+
+  private DspKernels() {}
+
+  private static Backend loadBackend() {
+    if (SCALAR.equals(System.getProperty(BACKEND_PROPERTY)))
+      return new ScalarKernels();
+
+    // Not there at all on Android, and there without the incubator module unless the JVM was asked for it.
+    // Anything reflection throws on the way (missing class or constructor, or one that fails) means scalar.
+    try {
+      return (Backend) Class.forName(VECTOR_BACKEND).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      return new ScalarKernels();
+    } catch (LinkageError e) {
+      return new ScalarKernels();
+    }
+  }
+
+  // Which backend we're running on, for benchmarks and reports
+  public static String getBackendName() {
+    return backend.getName();
+  }
+
+  public static void clear(final float[] buffer, final int offset, final int length) {
+    backend.clear(buffer, offset, length);
+  }
+
+  public static void mixAdd(final float[] dst, final float[] src, final int offset, final int length) {
+    backend.mixAdd(dst, offset, src, offset, length);
+  }
+  public static void mixAdd(final float[] dst, final int dstOffset, final float[] src, final int srcOffset, final int length) {
+    backend.mixAdd(dst, dstOffset, src, srcOffset, length);
+  }
+
+  public static void scale(final float[] buffer, final int offset, final int length, final float gain) {
+    backend.scale(buffer, offset, length, gain);
+  }
+
+  public static void scaleAdd(final float[] dst, final int dstOffset, final float[] src, final int srcOffset, final int length, final float gain) {
+    backend.scaleAdd(dst, dstOffset, src, srcOffset, length, gain);
+  }
+
+  public static void multiply(final float[] dst, final float[] src, final int offset, final int length) {
+    backend.multiply(dst, offset, src, offset, length);
+  }
+  public static void multiply(final float[] dst, final int dstOffset, final float[] src, final int srcOffset, final int length) {
+    backend.multiply(dst, dstOffset, src, srcOffset, length);
+  }
+
+  public static float peak(final float[] buffer, final int offset, final int length) {
+    return backend.peak(buffer, offset, length);
+  }
+
+  public static void floatToPcm16(final float[] src, final int srcOffset, final short[] dst, final int dstOffset, final int length) {
+    backend.floatToPcm16(src, srcOffset, dst, dstOffset, length);
+  }
+
+  /**
+   * The plain loops. Each one indexes from 0 with the offsets hoisted out and keeps the body free of
+   * branches, so the loop compilers can unroll it and use SIMD without any help.
+   */
+  public static final class ScalarKernels implements Backend {
+    public String getName() {
+      return SCALAR;
+    }
+
+    public void clear(final float[] buffer, final int offset, final int length) {
+      Arrays.fill(buffer, offset, offset + length, 0f);
+    }
+
+    public void mixAdd(final float[] dst, final int dstOffset, final float[] src, final int srcOffset, final int length) {
+      for (int i = 0; i < length; i++)
+        dst[dstOffset + i] += src[srcOffset + i];
+    }
+
+    public void scale(final float[] buffer, final int offset, final int length, final float gain) {
+      for (int i = 0; i < length; i++)
+        buffer[offset + i] *= gain;
+    }
+
+    public void scaleAdd(final float[] dst, final int dstOffset, final float[] src, final int srcOffset, final int length, final float gain) {
+      for (int i = 0; i < length; i++)
+        dst[dstOffset + i] += gain * src[srcOffset + i];
+    }
+
+    public void multiply(final float[] dst, final int dstOffset, final float[] src, final int srcOffset, final int length) {
+      for (int i = 0; i < length; i++)
+        dst[dstOffset + i] *= src[srcOffset + i];
+    }
+
+    public float peak(final float[] buffer, final int offset, final int length) {
+      float peak = 0;
+      for (int i = 0; i < length; i++)
+        peak = Math.max(peak, Math.abs(buffer[offset + i]));
+      return peak;
+    }
+
+    public void floatToPcm16(final float[] src, final int srcOffset, final short[] dst, final int dstOffset, final int length) {
+      for (int i = 0; i < length; i++)
+        dst[dstOffset + i] = (short) (Math.max(-1f, Math.min(1f, src[srcOffset + i])) * Short.MAX_VALUE);
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.io.Serializable;
+
+/**
+ * An ADSR envelope, stepped every sample.
+ *
+ * Attack rises from wherever we are to 1, decay falls from there to the sustain level and release
+ * falls from wherever we are to silence. Every segment is an exponential approach (quick at first,
+ * easing in towards the end) read from one precomputed curve, but lands on its target in a set time
+ * instead of creeping up on it forever. A level only depends on how far into its segment we are,
+ * so however the Dac splits blocks at events the samples come out the same.
+ *
+ * Nothing here allocates. The stage and level may be read from other threads (e.g. a VoicePool
+ * looking for the quietest voice) while the audio thread moves them along.
+ */
+public class Envelope implements Serializable {
+  public static final int IDLE = 0,
+                          ATTACK = 1,
+                          DECAY = 2,
+                          SUSTAIN = 3,
+                          RELEASE = 4;
+
+  // How many time constants of an exponential approach each segment covers before it snaps to its target
+  public static final float SPAN = 5f;
+  // The longest a segment can take
+  public static final float MAX_SECONDS = 30f;
+
+  private static final int CURVE_POINTS = 1024;
+  // From 0 to 1: 1 - e^(-SPAN x), stretched so it ends right on 1. One entry past the end for interpolating.
+  private static final float[] CURVE = buildCurve();
+
+  private int sampleRate = AudioConfig.DEFAULT_SAMPLE_RATE;
+
+  // Settings. Times in seconds.
+  private float attack = 0f, decay = 0f, sustain = 1f, release = 0f;
+
+  private volatile int stage = IDLE;
+  private volatile float level = 0f;
+
+  // The segment we're in: from and to, how long it is and how far in we are (in frames)
+  private float from = 0f, to = 0f, pointsPerFrame = 0f;
+  private int frames = 0, elapsed = 0;
+
+  private static float[] buildCurve() {
+    final float[] curve = new float[CURVE_POINTS + 1];
+    final double end = 1.0 - Math.exp(-SPAN);
+    for (int i = 0; i < CURVE_POINTS; i++)
+      curve[i] = (float) ((1.0 - Math.exp(-SPAN * i / CURVE_POINTS)) / end);
+    curve[CURVE_POINTS] = 1f;
+    return curve;
+  }
+
+  /**
+   * How long an exponential approach takes to get there, give or take the last few percent, when it leaves
+   * setting (0 to 1) squared of the gap after each default sized block.
+   */
+  public static float toSeconds(float setting) {
+    if (setting <= 0f)
+      return 0f;
+    if (setting >= 1f)
+      return MAX_SECONDS;
+
+    final double blockSeconds = (double) AudioConfig.DEFAULT_BLOCK_SIZE / AudioConfig.DEFAULT_SAMPLE_RATE,
+                 timeConstant = blockSeconds / -Math.log(setting * setting);
+    return (float) Math.min(SPAN * timeConstant, MAX_SECONDS);
+  }
+
+  public void prepare(AudioConfig config) {
+    sampleRate = config.getSampleRate();
+  }
+
+  // Each applies from the next segment that uses it
+  public void setAttack(float seconds) {
+    attack = clampTime(seconds);
+  }
+  public float getAttack() {
+    return attack;
+  }
+  public void setDecay(float seconds) {
+    decay = clampTime(seconds);
+  }
+  public float getDecay() {
+    return decay;
+  }
+  // The level (0 to 1) we hold at for as long as the note is
+  public void setSustain(float level) {
+    sustain = Math.max(0f, Math.min(level, 1f));
+  }
+  public float getSustain() {
+    return sustain;
+  }
+  public void setRelease(float seconds) {
+    release = clampTime(seconds);
+  }
+  public float getRelease() {
+    return release;
+  }
+  private static float clampTime(float seconds) {
+    return Math.max(0f, Math.min(seconds, MAX_SECONDS));
+  }
+
+  public int getStage() {
+    return stage;
+  }
+  public float getLevel() {
+    return level;
+  }
+  // Whether render would write the same gain for every frame
+  public boolean isSteady() {
+    final int stage = this.stage;
+    return stage == IDLE || stage == SUSTAIN;
+  }
+
+  // Start (or restart) the attack from wherever we are
+  public void noteOn() {
+    start(ATTACK, level, 1f, attack);
+  }
+  // Let go: release from wherever we are. If that's nowhere, we're idle already.
+  public void noteOff() {
+    if (stage != IDLE)
+      start(RELEASE, level, 0f, release);
+  }
+  // Silence at once
+  public void reset() {
+    stage = IDLE;
+    level = 0f;
+  }
+
+  private void start(int stage, float from, float to, float seconds) {
+    this.from = from;
+    this.to = to;
+    frames = Math.round(seconds * sampleRate);
+    elapsed = 0;
+    pointsPerFrame = (frames > 0) ? (float) CURVE_POINTS / frames : 0f;
+    this.stage = stage;
+
+    if (frames == 0 || from == to)
+      finishSegment();
+  }
+
+  // We've landed on to, so on to whatever's next
+  private void finishSegment() {
+    level = to;
+
+    switch (stage) {
+      case ATTACK:
+        start(DECAY, to, sustain, decay);
+        break;
+      case DECAY:
+        stage = SUSTAIN;
+        break;
+      case RELEASE:
+        stage = IDLE;
+        break;
+    }
+  }
+
+  /**
+   * Write scale times our level for each of the frames from offset up to offset + length into gains.
+   * Returns true if a release finished along the way (we're idle now and the rest is silence).
+   */
+  public boolean render(final float[] gains, final int offset, final int length, final float scale) {
+    boolean finished = false;
+    int done = 0;
+
+    while (done < length) {
+      if (isSteady()) {
+        final float gain = scale * level;
+        for (int i = offset + done; i < offset + length; i++)
+          gains[i] = gain;
+        break;
+      }
+
+      final int count = Math.min(frames - elapsed, length - done);
+      final float from = this.from,
+                  range = to - from,
+                  pointsPerFrame = this.pointsPerFrame;
+      final int start = offset + done - elapsed;
+
+      float value = level;
+      for (int f = elapsed; f < elapsed + count; f++) {
+        final float point = f * pointsPerFrame;
+        final int index = Math.min((int) point, CURVE_POINTS - 1);
+        final float fraction = point - index;
+        value = from + range * (CURVE[index] + fraction * (CURVE[index + 1] - CURVE[index]));
+        gains[start + f] = scale * value;
+      }
+      level = value;
+
+      elapsed += count;
+      done += count;
+
+      if (elapsed == frames) {
+        final boolean releasing = stage == RELEASE;
+        finishSegment();
+        finished |= releasing && stage == IDLE;
+      }
+    }
+
+    return finished;
+  }
+}
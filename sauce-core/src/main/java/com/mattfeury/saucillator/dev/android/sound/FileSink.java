@@ -0,0 +1,84 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Writes everything to a wav file.
+ *
+ * The header is written up front with an empty length and patched on close,
+ * so nothing is held in memory no matter how long the render is.
+ */
+public class FileSink implements AudioSink {
+  private final File file;
+  private RandomAccessFile out;
+  private byte[] bytes = new byte[0];
+  private int sampleRate, samplesWritten;
+
+  public FileSink(File file) {
+    this.file = file;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public void open(AudioConfig config) {
+    this.sampleRate = config.getSampleRate();
+    samplesWritten = 0;
+
+    try {
+      out = new RandomAccessFile(file, "rw");
+      out.setLength(0);
+      WavWriter.writeHeader(out, 0, sampleRate);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to open " + file, e);
+    }
+  }
+
+  public void write(short[] samples, int length) {
+    if (bytes.length < length * 2)
+      bytes = new byte[length * 2];
+
+    // Little endian, as wav wants
+    for (int i = 0; i < length; i++) {
+      bytes[i * 2] = (byte)(samples[i] & 0xff);
+      bytes[i * 2 + 1] = (byte)((samples[i] >> 8) & 0xff);
+    }
+
+    try {
+      out.write(bytes, 0, length * 2);
+      samplesWritten += length;
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write to " + file, e);
+    }
+  }
+
+  // Files never run dry
+  public int getUnderrunCount() {
+    return 0;
+  }
+
+  // A file doesn't mind gaps. Whatever's skipped just isn't in it.
+  public void pause() {
+  }
+
+  public void resume() {
+  }
+
+  public void close() {
+    if (out == null)
+      return;
+
+    try {
+      out.seek(0);
+      WavWriter.writeHeader(out, samplesWritten, sampleRate);
+      out.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to finish " + file, e);
+    } finally {
+      out = null;
+    }
+  }
+}
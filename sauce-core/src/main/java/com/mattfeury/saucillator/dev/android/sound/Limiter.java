@@ -0,0 +1,20 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+public class Limiter {
+
+  public static float limit(final float[] buffer) {
+    return limit(buffer, 0, buffer.length);
+  }
+
+  // Scales the whole run down if anything's over 1. Returns the peak it was left with.
+  public static float limit(final float[] buffer, final int offset, final int length) {
+    final float peak = DspKernels.peak(buffer, offset, length);
+
+    if (peak > 1) {
+      DspKernels.scale(buffer, offset, length, 1f / peak);
+      return 1;
+    }
+    return peak;
+  }
+
+}
@@ -0,0 +1,190 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.Arrays;
+import java.util.Stack;
+/**
+ * Creates a loop
+ */
+public class Looper extends UGen {
+  float[] loopTable;
+  // The first loop while it's being recorded. Grown by doubling, so recording only allocates every so often.
+  // Only around while recording it.
+  float[] baseLoop;
+  int baseLength = 0;
+  Stack<float[]> loops;
+  int pointer = 0;
+	//boolean enabled = true;
+  float amplitude = 0.9f; //don't playback loop at full volume. 
+  // The UI peeks at these (see AudioEngine.isLooping), only the audio thread writes them
+  volatile boolean defined = false;
+  volatile boolean recording = false;
+  volatile boolean playing = true;
+
+  // Commands for setParameter (the value is ignored)
+  public static final int TOGGLE_RECORDING = 0,
+                          UNDO = 1,
+                          RESET = 2;
+
+  // Room for this much of the first loop before we have to grow
+  private static final int INITIAL_SECONDS = 8;
+
+  public Looper() {
+    super();
+    loops = new Stack<float[]>();
+  }
+
+  @Override
+  public void setParameter(int param, float value) {
+    switch (param) {
+      case TOGGLE_RECORDING:
+        toggleRecording();
+        break;
+      case UNDO:
+        undo();
+        break;
+      case RESET:
+        reset();
+        break;
+    }
+  }
+
+  public void reset() {
+    recording = false;
+    defined = false;
+
+    pointer = 0;
+    loops.clear();
+    baseLength = 0;
+  }
+  public void startPlaying() {
+    playing = true;
+  }
+  public void stopPlaying() {
+    playing = false;
+  }
+  public void startRecording() {
+    if (! defined && baseLoop == null)
+      baseLoop = new float[INITIAL_SECONDS * config.getSampleRate()];
+
+    recording = true;
+    if (defined) {
+      // Create a new layer for this loop
+      float[] loop = new float[loopTable.length];
+      Arrays.fill(loop, 0f);
+      loops.push(loop);
+    }
+  }
+  public void stopRecording() {
+    recording = false;
+
+    if (! defined && baseLoop != null) {
+      //setup loopTable
+      loopTable = Arrays.copyOf(baseLoop, baseLength);
+      loops.push(Arrays.copyOf(baseLoop, baseLength));
+
+      // We don't need this anymore since it's in the stack.
+      // Let it be garbage collected to reduce heap size.
+      baseLoop = null;
+      baseLength = 0;
+
+      defined = true;
+    }
+  }
+  public boolean toggleRecording() {
+    if (recording)
+      stopRecording();
+    else
+      startRecording();
+
+    return recording;
+  }
+
+  public void recalculateLoopTable() {
+    Arrays.fill(loopTable, 0f);
+    for (float[] loop : loops)
+      DspKernels.mixAdd(loopTable, 0, loop, 0, loop.length);
+  }
+  public void removeLoopFromTable(final float[] loop) {
+    if (loop.length != loopTable.length)
+      return;
+
+    for (int i=0; i < loopTable.length; i++)
+      loopTable[i] -= loop[i];
+  }
+  public void undo() {
+    if (! defined) {
+      reset();
+      return;
+    } else
+      stopRecording();
+    
+    if (loops.size() != 0) {
+      float[] loop = loops.pop();
+      removeLoopFromTable(loop);
+    }
+
+    if (loops.size() == 0)
+      reset();
+
+  }
+	
+  // Recording has to hear the silence too, or the loop comes out short
+  @Override
+  public boolean isQuiet() {
+    return ! recording && ! (defined && playing);
+  }
+
+  protected boolean process(final float[] input, final float[] buffer, final int offset, final int length, boolean kidsDidWork) {
+    if (! playing) return kidsDidWork;
+
+    // Only we write these, so read them once instead of per sample
+    final boolean recording = this.recording,
+                  defined = this.defined;
+
+    // Just playing back: the loop goes in as runs up to the end of the table, wrapping round to the start
+    if (defined && ! recording) {
+      for (int done = 0; done < length; ) {
+        final int run = Math.min(length - done, loopTable.length - pointer);
+        DspKernels.scaleAdd(buffer, offset + done, loopTable, pointer, run, amplitude);
+        done += run;
+        pointer = (pointer + run) % loopTable.length;
+      }
+      return true;
+    }
+
+    int origPointer = pointer;
+    float[] loop = null;
+    if (recording && defined && loops.size() != 0)
+      loop = loops.peek();
+
+    for(int i = offset; i < offset + length; i++) {
+
+      if (recording) {
+        if (! defined) {
+          if (baseLength == baseLoop.length)
+            baseLoop = Arrays.copyOf(baseLoop, baseLoop.length * 2);
+          baseLoop[baseLength++] = buffer[i];
+        } else {
+          // Add to full loop
+          loopTable[origPointer] += buffer[i];
+
+          // Add to newest layer (created when recording starts)
+          loop[origPointer] += buffer[i];
+
+          origPointer = (origPointer + 1) % loopTable.length;
+        }
+      }
+
+      if (defined) {
+        if (recording) //buffer has already been added to looptable
+          buffer[i] = amplitude*loopTable[pointer];
+        else
+          buffer[i] += amplitude*loopTable[pointer];
+
+        pointer = (pointer + 1) % loopTable.length;
+      }
+    }
+
+		return kidsDidWork || defined;
+	}
+}
@@ -0,0 +1,34 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+/**
+ * Throws everything away. Handy for benchmarking the graph without any I/O in the way.
+ */
+public class NullSink implements AudioSink {
+  private long framesWritten = 0;
+
+  public void open(AudioConfig config) {
+    framesWritten = 0;
+  }
+
+  public void write(short[] samples, int length) {
+    framesWritten += length;
+  }
+
+  // Nothing to run dry
+  public int getUnderrunCount() {
+    return 0;
+  }
+
+  public void pause() {
+  }
+
+  public void resume() {
+  }
+
+  public void close() {
+  }
+
+  public long getFramesWritten() {
+    return framesWritten;
+  }
+}
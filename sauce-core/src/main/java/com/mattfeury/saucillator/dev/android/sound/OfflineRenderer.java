@@ -0,0 +1,124 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.ArrayList;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+import com.mattfeury.saucillator.dev.android.instruments.InstrumentLoader;
+
+/**
+ * Renders a Performance without an audio device or a UI.
+ *
+ * This builds the same kind of graph the AudioEngine does (a pool of voices chucked into a Dac)
+ * but instead of the AudioTrack pacing us, we tick the Dac in a tight loop and hand every block to
+ * the given sink. With a FileSink you get a wav of the performance; with a NullSink you get a
+ * benchmark of the synth.
+ *
+ * Events are scheduled through the Dac's ParameterQueue, so they land on their exact frame.
+ */
+public class OfflineRenderer {
+  public static final long DEFAULT_SEED = 0;
+
+  private final AudioConfig config;
+  private final AudioSink sink;
+  private final InstrumentLoader instruments;
+  // Where anything random in the voices (e.g. Noise) starts, so a performance always renders the same
+  private long seed = DEFAULT_SEED;
+
+  // instruments is used to copy the performance's instrument into the rest of the voices
+  public OfflineRenderer(AudioSink sink, InstrumentLoader instruments) {
+    this(AudioConfig.DEFAULT, sink, instruments);
+  }
+  public OfflineRenderer(AudioConfig config, AudioSink sink, InstrumentLoader instruments) {
+    this.config = config;
+    this.sink = sink;
+    this.instruments = instruments;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Render the whole performance into our sink, closing it once done.
+   * Returns how many frames were rendered (the duration rounded up to a whole block).
+   */
+  public long render(Performance performance) {
+    final ComplexOsc[] oscs = buildVoices(performance);
+    final VoicePool voices = new VoicePool(oscs, VoicePool.StealPolicy.OLDEST);
+    final Dac dac = new Dac(config, sink);
+
+    for (ComplexOsc osc : oscs)
+      osc.chuck(dac);
+    dac.recompile();
+
+    final ArrayList<Performance.Event> events = performance.getEvents();
+    final int sampleRate = config.getSampleRate();
+    final long frames = performance.getFrames(sampleRate);
+    int nextEvent = 0;
+    long frame = 0;
+
+    dac.open();
+    try {
+      while (frame < frames) {
+        final long blockEnd = frame + config.getBlockSize();
+        while (nextEvent < events.size() && events.get(nextEvent).getFrame(sampleRate) < blockEnd)
+          schedule(dac.getParameters(), voices, events.get(nextEvent++), sampleRate);
+
+        dac.tick();
+        frame = blockEnd;
+      }
+    } finally {
+      dac.close();
+
+      for (ComplexOsc osc : oscs) {
+        osc.unchuck(dac);
+        if (osc != performance.getInstrument())
+          osc.dispose();
+      }
+    }
+
+    return frame;
+  }
+
+  // Same as a finger on the pad (see FingeredOscillator.handleTouch), only with exact timing
+  private void schedule(ParameterQueue parameters, VoicePool voices, Performance.Event event, int sampleRate) {
+    final long frame = event.getFrame(sampleRate);
+    if (event.type == Performance.NOTE_ON) {
+      ComplexOsc osc = voices.acquire(event.id);
+      if (osc == null)
+        return;
+
+      parameters.post(osc, ComplexOsc.NOTE_ON, 0, frame);
+      parameters.post(osc, ComplexOsc.FREQUENCY, event.frequency, frame);
+      parameters.post(osc, ComplexOsc.AMPLITUDE, event.amplitude, frame);
+    } else {
+      ComplexOsc osc = voices.get(event.id);
+      if (osc == null)
+        return;
+
+      parameters.post(osc, ComplexOsc.NOTE_OFF, 0, frame);
+      voices.release(event.id);
+    }
+  }
+
+  // The instrument itself plays the first voice, the rest are copies of it. Each voice gets its own seed.
+  private ComplexOsc[] buildVoices(Performance performance) {
+    final ComplexOsc instrument = performance.getInstrument();
+    final ComplexOsc[] oscs = new ComplexOsc[Math.max(1, performance.getPolyphony())];
+
+    oscs[0] = instrument;
+    for (int i = 1; i < oscs.length; i++) {
+      oscs[i] = instruments.copyInstrument(instrument);
+      if (oscs[i] == null)
+        throw new IllegalArgumentException("Unable to copy instrument " + instrument.getName());
+    }
+
+    for (int i = 0; i < oscs.length; i++)
+      oscs[i].setSeed(seed + i);
+
+    return oscs;
+  }
+}
@@ -0,0 +1,130 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+/**
+ * Parameter changes on their way from the UI thread to the audio thread.
+ *
+ * Instead of calling setters on UGens the audio thread is busy rendering (and locking to keep them
+ * consistent), the UI posts a change here and the Dac applies it through UGen.setParameter.
+ * The audio thread never waits on the UI, and rendering needs no monitors.
+ *
+ * Every change carries the frame it should land on (see Dac.getFrameForNow). The Dac splits its
+ * block at that frame so the change is heard on the exact sample, rather than wherever the block
+ * boundary happened to fall. Frames never go backwards: anything posted for earlier than the last
+ * change is moved up to it, so the queue is always in frame order.
+ *
+ * This is a single producer, single consumer ring of preallocated records, so posting never
+ * allocates or blocks. Only ever post from one thread (the UI thread). If the ring fills up
+ * (e.g. the Dac is paused) new changes are dropped and counted rather than waiting.
+ */
+public final class ParameterQueue {
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  private final int capacity, mask;
+
+  // One record per slot, struct of arrays style
+  private final UGen[] targets;
+  private final int[] params;
+  private final float[] values;
+  private final long[] frames;
+
+  // Producer only. The latest frame posted so far.
+  private long lastFrame = 0;
+
+  // Only ever increase (and wrap). write is only written by the producer, read by the consumer.
+  private volatile int write = 0, read = 0;
+  private volatile int dropped = 0;
+
+  // capacity is rounded up to a power of two
+  public ParameterQueue(int capacity) {
+    int size = 1;
+    while (size < capacity)
+      size <<= 1;
+
+    this.capacity = size;
+    mask = size - 1;
+    targets = new UGen[size];
+    params = new int[size];
+    values = new float[size];
+    frames = new long[size];
+  }
+
+  public boolean post(UGen target, int param) {
+    return post(target, param, 0f);
+  }
+  // As soon as possible (i.e. along with the last change posted)
+  public boolean post(UGen target, int param, float value) {
+    return post(target, param, value, lastFrame);
+  }
+
+  /**
+   * Have target.setParameter(param, value) called on the audio thread right before it renders frame.
+   * Frames already rendered are applied at the start of the next block.
+   * Returns false if there was no room and the change was dropped.
+   */
+  public boolean post(UGen target, int param, float value, long frame) {
+    final int write = this.write;
+    if (write - read >= capacity) {
+      dropped++;
+      return false;
+    }
+
+    final int slot = write & mask;
+    targets[slot] = target;
+    params[slot] = param;
+    values[slot] = value;
+    frames[slot] = lastFrame = Math.max(frame, lastFrame);
+
+    // Publishes the record above
+    this.write = write + 1;
+    return true;
+  }
+
+  /**
+   * Apply everything posted so far, in order. Audio thread only.
+   * Returns how many changes were applied.
+   */
+  public int drain() {
+    return applyUntil(Long.MAX_VALUE);
+  }
+
+  /**
+   * Apply everything due at or before frame, in order. Audio thread only.
+   * Returns how many changes were applied.
+   */
+  public int applyUntil(long frame) {
+    final int write = this.write;
+    int read = this.read;
+    if (read == write)
+      return 0;
+
+    final int first = read;
+    for (; read != write && frames[read & mask] <= frame; read++) {
+      final int slot = read & mask;
+      final UGen target = targets[slot];
+      targets[slot] = null; // don't keep thrown away UGens alive
+
+      target.setParameter(params[slot], values[slot]);
+    }
+
+    // Hands the slots back to the producer
+    this.read = read;
+    return read - first;
+  }
+
+  // The frame the next change is due on, or Long.MAX_VALUE if there's nothing waiting. Audio thread only.
+  public long peekFrame() {
+    final int read = this.read;
+    return (read != write) ? frames[read & mask] : Long.MAX_VALUE;
+  }
+
+  public int size() {
+    return write - read;
+  }
+  public int getCapacity() {
+    return capacity;
+  }
+  // How many changes didn't fit
+  public int getDropped() {
+    return dropped;
+  }
+}
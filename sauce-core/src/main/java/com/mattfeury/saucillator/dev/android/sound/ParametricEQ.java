@@ -0,0 +1,153 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+/**
+ * Written with the help of this wonderful resource:
+ * http://epubl.luth.se/1402-1773/2003/044/LTU-CUPP-03044-SE.pdf
+ * 
+ * Q is unit-less, as usual, but it seems to correlate that:
+ * 0.33 = about 1,500 Hz affected
+ * 12 = about 8,000 Hz affected
+ */
+public class ParametricEQ extends UGen {
+
+  public static final float minFreq = 20,
+                            maxFreq = (AudioConfig.DEFAULT_SAMPLE_RATE - 50f) / 2f, //if we go much higher, we get strAnGe fx (e.g. ringing)
+                            minQ = .33f,
+                            maxQ = 12f,
+                            minGain = -12,
+                            maxGain = 12;
+
+  // Parameter ids for setParameter
+  public static final int FREQUENCY = 0,
+                          GAIN = 1,
+                          Q = 2;
+
+  private float frequency = (maxFreq + minFreq) / 2f,
+                gain = (maxGain + minGain) / 2f,
+                q = (maxQ + minQ) / 2f;
+
+  // Internal variables used for calculating IIF
+  // Sorry these are named so C-style (i.e. shittily),
+  // but they are derived from an equation (a0 = "a sub 0")
+  private float a0, a1, a2, b0, b1, b2;
+  private float xm1 = 0, xm2 = 0, ym1 = 0, ym2 = 0;
+
+  // TODO abstract me to an effect interface or something
+  private boolean enabled = true;
+
+  public ParametricEQ() {
+    recalculate();
+  }
+  public ParametricEQ(float frequency, float gain, float q) {
+    this.frequency = frequency;
+    this.gain = gain;
+    this.q = q;
+
+    recalculate();
+  }
+
+  /**
+   * These setters expect a percentage value (0.0 to 1.0) that they then scale to actual bounds
+   */
+  public void setFrequency(float freq) {
+    this.frequency = freq;
+    recalculate();
+  }
+  public void setQ(float q) {
+    this.q = q;
+    recalculate();
+  }
+  public void setGain(float gain) {
+    this.gain = gain;
+    recalculate();
+  }
+  @Override
+  public void setParameter(int param, float value) {
+    switch (param) {
+      case FREQUENCY:
+        setFrequency(value);
+        break;
+      case GAIN:
+        setGain(value);
+        break;
+      case Q:
+        setQ(value);
+        break;
+    }
+  }
+
+  public float getFrequency() {
+    return frequency;
+  }
+  public float getQ() {
+    return q;
+  }
+  public float getGain() {
+    return gain;
+  }
+
+  // Coefficients depend on the sample rate
+  @Override
+  public void prepare(AudioConfig config) {
+    super.prepare(config);
+    recalculate();
+  }
+
+  private void recalculate() {
+    float A, omega, cs, sn, alpha;
+
+    // maxFreq is for the default rate. Lower rates can't go as high.
+    final int sampleRate = config.getSampleRate();
+    final float frequency = Math.min(this.frequency, (sampleRate - 50f) / 2f);
+
+    A = (float) Math.pow(10f, gain / 40.0f);
+    omega = (float) ((2f * Math.PI * frequency) / sampleRate);
+    sn = (float) Math.sin(omega);
+    cs = (float) Math.cos(omega);
+    alpha = (float) (sn / (2.0f * q));
+
+    b0 = 1f + alpha * A;
+    b1 = -2f * cs;
+    b2 = 1f - alpha * A;
+    a0 = 1f + alpha / A;
+    a1 = -2f * cs;
+    a2 = 1f - alpha / A;
+  }
+
+  // Quiet once the filter has settled. With no input it would only ring on from here.
+  @Override
+  public boolean isQuiet() {
+    return ! enabled || (
+        xm1 < SILENCE && xm1 > -SILENCE &&
+        xm2 < SILENCE && xm2 > -SILENCE &&
+        ym1 < SILENCE && ym1 > -SILENCE &&
+        ym2 < SILENCE && ym2 > -SILENCE);
+  }
+
+  protected boolean process(final float[] input, final float[] buffer, final int offset, final int length, boolean kidsDidWork) {
+    if (! enabled)
+      return kidsDidWork;
+
+    final boolean ringing = ! isQuiet();
+
+    float xn, yn;
+    for(int i = offset; i < offset + length; i++) {
+      xn = buffer[i];
+      yn = (b0 * xn + b1 * xm1 + b2 * xm2 - a1 * ym1 - a2 * ym2) / a0;
+
+      xm2 = xm1;
+      xm1 = xn;
+      ym2 = ym1;
+      ym1 = yn;
+
+      buffer[i] = yn;
+    }
+
+    // Settled. Start from a clean slate next time instead of carrying leftovers too small to hear.
+    if (! kidsDidWork && isQuiet())
+      xm1 = xm2 = ym1 = ym2 = 0;
+
+    return kidsDidWork || ringing;
+  }
+
+}
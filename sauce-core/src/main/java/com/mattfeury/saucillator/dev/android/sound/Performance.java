@@ -0,0 +1,87 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+
+/**
+ * A scripted performance for the OfflineRenderer: an instrument, when each finger goes
+ * down and up (and where), and how long to keep rendering for.
+ *
+ * Ids work like finger ids on the pad. A note on for an id that is already down just moves it.
+ * Times are in seconds from the start of the performance.
+ */
+public class Performance {
+  public static final int NOTE_ON = 0, NOTE_OFF = 1;
+
+  public static class Event {
+    public final int type, id;
+    public final float time, frequency, amplitude;
+
+    Event(int type, float time, int id, float frequency, float amplitude) {
+      this.type = type;
+      this.time = time;
+      this.id = id;
+      this.frequency = frequency;
+      this.amplitude = amplitude;
+    }
+
+    // Which sample this lands on
+    public long getFrame(int sampleRate) {
+      return Math.round((double) time * sampleRate);
+    }
+  }
+
+  private final ComplexOsc instrument;
+  private final int polyphony;
+  private final float duration;
+  private final ArrayList<Event> events = new ArrayList<Event>();
+
+  public Performance(ComplexOsc instrument, float duration) {
+    this(instrument, AudioEngine.DEFAULT_POLYPHONY, duration);
+  }
+  public Performance(ComplexOsc instrument, int polyphony, float duration) {
+    this.instrument = instrument;
+    this.polyphony = polyphony;
+    this.duration = duration;
+  }
+
+  public Performance noteOn(float time, int id, float frequency, float amplitude) {
+    events.add(new Event(NOTE_ON, time, id, frequency, amplitude));
+    return this;
+  }
+  public Performance noteOff(float time, int id) {
+    events.add(new Event(NOTE_OFF, time, id, 0f, 0f));
+    return this;
+  }
+  // Shorthand for a note on followed by a note off
+  public Performance note(float time, float length, int id, float frequency, float amplitude) {
+    return noteOn(time, id, frequency, amplitude).noteOff(time + length, id);
+  }
+
+  public ComplexOsc getInstrument() {
+    return instrument;
+  }
+  public int getPolyphony() {
+    return polyphony;
+  }
+  public float getDuration() {
+    return duration;
+  }
+  public long getFrames(int sampleRate) {
+    return Math.round((double) duration * sampleRate);
+  }
+
+  // In the order they happen. Events at the same time keep the order they were added in.
+  public ArrayList<Event> getEvents() {
+    ArrayList<Event> sorted = new ArrayList<Event>(events);
+    Collections.sort(sorted, new Comparator<Event>() {
+      public int compare(Event a, Event b) {
+        return Float.compare(a.time, b.time);
+      }
+    });
+    return sorted;
+  }
+}
@@ -0,0 +1,221 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+/**
+ * Lets the Dac render a few blocks ahead of another sink.
+ *
+ * Normally the audio thread renders a block and then blocks in the sink's write() until there's room,
+ * so a slow block (GC, the scheduler, a busy UGen) goes straight to the speaker as an underrun.
+ * Wrapped in one of these, the Dac's thread only renders: finished blocks are copied into a small ring
+ * of preallocated blocks and a writer thread of our own feeds them to the real sink. While the ring
+ * has blocks queued up, a slow render just eats into them instead of the sink running dry.
+ *
+ * The ring holds up to depth blocks, which is also how much latency we add on top of the sink's own.
+ * The depth can be changed while running (up to MAX_DEPTH). See RenderMetrics for how close we came to empty.
+ */
+public class RenderAheadSink implements AudioSink {
+  public static final int DEFAULT_DEPTH = 3,
+                          MAX_DEPTH = 16;
+
+  private final AudioSink sink;
+
+  // The ring. Guarded by lock. Slots from head up to head + count are queued for the writer.
+  private final Object lock = new Object();
+  private short[][] blocks;
+  private final int[] lengths = new int[MAX_DEPTH];
+  private int head = 0, count = 0;
+  private boolean closing = false, paused = false;
+  // If the sink blew up on the writer thread, it's rethrown from write() so the Dac finds out
+  private RuntimeException failure = null;
+
+  private volatile int depth;
+  // Written by the writer only
+  private volatile long starved = 0;
+  private boolean started = false;
+
+  private Thread writer;
+
+  public RenderAheadSink(AudioSink sink) {
+    this(sink, DEFAULT_DEPTH);
+  }
+  public RenderAheadSink(AudioSink sink, int depth) {
+    this.sink = sink;
+    setDepth(depth);
+  }
+
+  public AudioSink getSink() {
+    return sink;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+  // How many blocks we may get ahead by, between 1 and MAX_DEPTH
+  public void setDepth(int depth) {
+    this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+
+    synchronized(lock) {
+      lock.notifyAll();
+    }
+  }
+
+  // How many blocks are waiting for the writer right now
+  public int getQueued() {
+    synchronized(lock) {
+      return count;
+    }
+  }
+  // How many times the writer found nothing to write (after the first block). Each is a likely underrun.
+  public long getStarvedCount() {
+    return starved;
+  }
+
+  public void open(AudioConfig config) {
+    blocks = new short[MAX_DEPTH][config.getBlockSize()];
+    head = 0;
+    count = 0;
+    closing = false;
+    paused = false;
+    failure = null;
+    started = false;
+
+    sink.open(config);
+
+    writer = new Thread(new Runnable() {
+      public void run() {
+        writeBlocks();
+      }
+    }, "RenderAheadSink");
+    writer.setPriority(Thread.MAX_PRIORITY);
+    writer.start();
+  }
+
+  // Called by the Dac. Waits only if we're already depth blocks ahead.
+  public void write(short[] samples, int length) {
+    synchronized(lock) {
+      if (failure != null)
+        throw failure;
+
+      while (count >= depth && ! closing) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      if (failure != null)
+        throw failure;
+      if (closing)
+        return;
+
+      final int slot = (head + count) % MAX_DEPTH;
+      final int copied = Math.min(length, blocks[slot].length);
+      System.arraycopy(samples, 0, blocks[slot], 0, copied);
+      lengths[slot] = copied;
+      count++;
+
+      lock.notifyAll();
+    }
+  }
+
+  private void writeBlocks() {
+    // Only the writer talks to the sink once it's open, so pauses are passed on from here too
+    boolean sinkPaused = false;
+
+    while (true) {
+      final short[] block;
+      final int length;
+      synchronized(lock) {
+        if (count == 0 && ! closing && ! paused && started)
+          starved++;
+
+        while (count == 0 && ! closing && (! paused || sinkPaused)) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+
+        if (count > 0) {
+          block = blocks[head];
+          length = lengths[head];
+        } else if (closing) {
+          // Whatever's left gets written before we go
+          return;
+        } else {
+          // Paused and drained. Nothing's coming, so going dry here isn't starving.
+          block = null;
+          length = 0;
+          started = false;
+        }
+      }
+
+      // The slot stays ours until we hand it back below, so this doesn't need the lock
+      try {
+        if (block == null) {
+          sink.pause();
+          sinkPaused = true;
+          continue;
+        }
+        if (sinkPaused) {
+          sink.resume();
+          sinkPaused = false;
+        }
+
+        sink.write(block, length);
+      } catch (RuntimeException e) {
+        synchronized(lock) {
+          failure = e;
+          closing = true;
+          lock.notifyAll();
+        }
+        return;
+      }
+      started = true;
+
+      synchronized(lock) {
+        head = (head + 1) % MAX_DEPTH;
+        count--;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  // The sink is paused once the blocks already queued have been written, and resumed before the next one
+  public void pause() {
+    synchronized(lock) {
+      paused = true;
+      lock.notifyAll();
+    }
+  }
+
+  public void resume() {
+    synchronized(lock) {
+      paused = false;
+      lock.notifyAll();
+    }
+  }
+
+  public int getUnderrunCount() {
+    return sink.getUnderrunCount();
+  }
+
+  public void close() {
+    synchronized(lock) {
+      closing = true;
+      lock.notifyAll();
+    }
+
+    if (writer != null) {
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      writer = null;
+    }
+
+    sink.close();
+  }
+}
@@ -0,0 +1,195 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import com.mattfeury.saucillator.dev.android.instruments.Oscillator;
+
+/**
+ * Where the block budget goes. Opt in with Dac.setMetrics.
+ *
+ * Every tick the Dac records how long it took to render a block (from the start of rendering
+ * until the samples are ready for the sink) against the deadline: the time it takes to play
+ * that block back (see AudioConfig.getBlockNanos). Ticks over the deadline count as late. Underruns
+ * come from the sink itself, for sinks that know about them (AudioTrack on API 24+).
+ * When rendering ahead (see RenderAheadSink) we also keep track of how full its queue was each tick.
+ * Per UGen timings are kept by the RenderPlan, so they start over whenever the graph changes.
+ *
+ * Everything lives in preallocated fields so the audio thread never allocates.
+ * Reading from another thread is fine for diagnostics, but numbers may be a tick apart from each other.
+ */
+public class RenderMetrics {
+  // Each bucket covers a tenth of the deadline. The last one holds everything from 190% up.
+  public static final int HISTOGRAM_BUCKETS = 20;
+
+  private final long deadlineNanos;
+
+  private long ticks, lateTicks, totalTickNanos, maxTickNanos, lastTickNanos;
+  private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+  private int underruns = -1;
+
+  // Render ahead queue. Depth is 0 if there isn't one. lowestQueued is the emptiest it got.
+  private int queueDepth = 0, queued = 0, lowestQueued = Integer.MAX_VALUE;
+  private long starved = 0;
+
+  // Resets are requested from anywhere but carried out on the audio thread, between ticks
+  private volatile boolean resetRequested = false;
+
+  public RenderMetrics(AudioConfig config) {
+    deadlineNanos = config.getBlockNanos();
+  }
+
+  public long getDeadlineNanos() {
+    return deadlineNanos;
+  }
+  public long getTicks() {
+    return ticks;
+  }
+  public long getLateTicks() {
+    return lateTicks;
+  }
+  public long getMaxTickNanos() {
+    return maxTickNanos;
+  }
+  public long getLastTickNanos() {
+    return lastTickNanos;
+  }
+  public long getAverageTickNanos() {
+    final long ticks = this.ticks;
+    return (ticks == 0) ? 0 : totalTickNanos / ticks;
+  }
+  // How many ticks fell in each tenth of the deadline
+  public long getHistogramCount(int bucket) {
+    return histogram[bucket];
+  }
+  // As reported by the sink, or -1 if it can't tell
+  public int getUnderruns() {
+    return underruns;
+  }
+
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+  public int getQueuedBlocks() {
+    return queued;
+  }
+  public int getLowestQueuedBlocks() {
+    return (lowestQueued == Integer.MAX_VALUE) ? 0 : lowestQueued;
+  }
+  public long getWriterStarvedCount() {
+    return starved;
+  }
+
+  public void reset() {
+    resetRequested = true;
+  }
+
+  // Audio thread only. Returns true if per UGen timings should be reset too.
+  boolean consumeReset() {
+    if (! resetRequested)
+      return false;
+
+    resetRequested = false;
+    ticks = 0;
+    lateTicks = 0;
+    totalTickNanos = 0;
+    maxTickNanos = 0;
+    lastTickNanos = 0;
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++)
+      histogram[i] = 0;
+    lowestQueued = Integer.MAX_VALUE;
+
+    return true;
+  }
+
+  // Audio thread only
+  void recordTick(final long nanos, final int underruns) {
+    ticks++;
+    totalTickNanos += nanos;
+    lastTickNanos = nanos;
+    if (nanos > maxTickNanos)
+      maxTickNanos = nanos;
+    if (nanos > deadlineNanos)
+      lateTicks++;
+
+    final int bucket = (int)(nanos * (HISTOGRAM_BUCKETS / 2) / deadlineNanos);
+    histogram[Math.min(bucket, HISTOGRAM_BUCKETS - 1)]++;
+
+    this.underruns = underruns;
+  }
+
+  // Audio thread only. How full the render ahead queue was once we'd queued a block.
+  void recordQueue(final int queued, final int depth, final long starved) {
+    this.queued = queued;
+    this.queueDepth = depth;
+    this.starved = starved;
+    if (queued < lowestQueued)
+      lowestQueued = queued;
+  }
+
+  /**
+   * Everything we know, as text. plan may be null, in which case there are no per UGen timings.
+   * This allocates, so don't call it from the audio thread.
+   */
+  public String report(RenderPlan plan) {
+    StringBuilder report = new StringBuilder();
+    final long ticks = this.ticks;
+
+    report.append(String.format("Ticks: %d, late: %d, underruns: %s\n",
+          ticks, lateTicks, (underruns < 0) ? "unknown" : String.valueOf(underruns)));
+    report.append(String.format("Tick time (us): avg %.1f, max %.1f, last %.1f, deadline %.1f\n",
+          getAverageTickNanos() / 1000f, maxTickNanos / 1000f, lastTickNanos / 1000f, deadlineNanos / 1000f));
+    if (queueDepth > 0)
+      report.append(String.format("Render ahead: %d of %d blocks queued, lowest %d, writer starved %d times\n",
+            queued, queueDepth, getLowestQueuedBlocks(), starved));
+
+    report.append("Histogram (% of deadline):\n");
+    for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+      final long count = histogram[i];
+      if (count == 0)
+        continue;
+
+      final int from = i * 100 / (HISTOGRAM_BUCKETS / 2);
+      if (i == HISTOGRAM_BUCKETS - 1)
+        report.append(String.format("  %4d%%+     %d\n", from, count));
+      else
+        report.append(String.format("  %4d-%3d%% %d\n", from, from + 100 / (HISTOGRAM_BUCKETS / 2), count));
+    }
+
+    if (plan == null)
+      return report.toString();
+
+    report.append("UGens (us per call: self avg/max, inclusive avg/max):\n");
+    for (int node = 0; node < plan.getNodeCount(); node++) {
+      final long calls = plan.getCalls(node);
+
+      StringBuilder label = new StringBuilder();
+      for (int d = 0; d < plan.getDepth(node); d++)
+        label.append("  ");
+      label.append(getLabel(plan.getUGen(node)));
+
+      final long skips = plan.getSkips(node);
+      final String skipped = (skips > 0) ? String.format(" (quiet, skipped %d%%)", 100 * skips / (calls + skips)) : "";
+
+      if (calls == 0) {
+        report.append(String.format("  %-40s not rendered%s\n", label, skipped));
+      } else {
+        report.append(String.format("  %-40s %8.2f %8.2f %8.2f %8.2f%s\n",
+              label,
+              plan.getSelfNanos(node) / 1000f / calls, plan.getMaxSelfNanos(node) / 1000f,
+              plan.getInclusiveNanos(node) / 1000f / calls, plan.getMaxInclusiveNanos(node) / 1000f,
+              skipped));
+      }
+    }
+
+    return report.toString();
+  }
+
+  private static String getLabel(UGen ugen) {
+    String label = ugen.getClass().getSimpleName();
+    if (label.length() == 0)
+      label = ugen.getClass().getName();
+
+    if (ugen instanceof Oscillator)
+      label += " (" + ((Oscillator) ugen).getName() + ")";
+
+    return label;
+  }
+}
@@ -0,0 +1,477 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A UGen graph compiled down to a flat list of render steps.
+ *
+ * Instead of every UGen recursing through its kids each chunk, we walk the graph once
+ * and lay it out in topological order (kids always come before their parents) with
+ * scratch buffers assigned up front (from a ScratchArena). Rendering a chunk is then a single loop
+ * that never allocates.
+ *
+ * Plans are immutable snapshots of the graph (apart from their scratch space, which only
+ * the audio thread touches), so they can be compiled on whatever thread edited the graph
+ * and handed to the audio thread with a single reference swap. Recompile when isStale() says so.
+ *
+ * Siblings that each render on their own and only add to their parent's buffer (voices, see
+ * UGen.isAdditive) are laid out as a group. Every voice in a group gets a lane of scratch buffers of its own
+ * and renders its whole subtree into its own output buffer. The voices are then mixed into the parent in graph order.
+ * That lets a group be spread over RenderWorkers once enough voices are sounding,
+ * and since the mix is the same adds in the same order either way, the output is bit for bit the same as rendering them one by one.
+ */
+public final class RenderPlan {
+  // Step types. Every node gets a PROCESS step; nodes with kids (or that isolate them) get an ENTER step first.
+  // A GROUP step comes right before the steps of a group's voices and renders all of them.
+  private static final int ENTER = 0, PROCESS = 1, GROUP = 2;
+
+  private final int version;
+  private final AudioConfig config;
+
+  // Indexed by node
+  private final UGen[] ugens;
+  private final int[] parents, inputs, outputs, processSteps;
+  private final boolean[] isolates, kidsDidWork;
+
+  // Per node timings, only kept while rendering with timed = true. See RenderMetrics.
+  // self is just the node's own process(), inclusive adds everything under it.
+  private final long[] enteredAt, calls, skips, selfNanos, maxSelfNanos, inclusiveNanos, maxInclusiveNanos;
+
+  // Indexed by step. For GROUP steps, stepNodes holds the group instead.
+  private final int[] stepNodes, stepTypes;
+
+  // Indexed by group. Voices of group g are groupStarts[g] up to groupStarts[g + 1].
+  private final int[] groupStarts, groupParents, groupEnds;
+  // Indexed by voice (across all groups)
+  private final int[] voiceNodes, voiceFirstSteps, voiceEndSteps;
+  private final boolean[] voiceDidWork;
+  // Which voice a node is, or -1 if it isn't one
+  private final int[] voiceOf;
+  // The voices of the group being rendered that aren't quiet. Only touched by the audio thread.
+  private final int[] sounding;
+  private final VoiceTask voiceTask = new VoiceTask();
+  // Whether a top level node did work in the chunk we're rendering. Voices are never top level, so only the audio thread writes this.
+  private boolean topLevelDidWork;
+
+  // buffers[0] is the buffer we are asked to render into. The rest are scratch, one per lane and level of isolation.
+  private final float[][] buffers;
+  // Whether anything that did work has written to each buffer since it was last cleared.
+  // A quiet node is only skipped if its input is still clean (see UGen.isQuiet).
+  private final boolean[] dirty;
+
+  private RenderPlan(int version, AudioConfig config, ScratchArena arena, Compiler compiler) {
+    this.version = version;
+    this.config = config;
+
+    final int nodeCount = compiler.ugens.size();
+    ugens = compiler.ugens.toArray(new UGen[nodeCount]);
+    parents = toArray(compiler.parents);
+    inputs = toArray(compiler.inputs);
+    outputs = toArray(compiler.outputs);
+    processSteps = toArray(compiler.processSteps);
+    isolates = new boolean[nodeCount];
+    for (int i = 0; i < nodeCount; i++)
+      isolates[i] = compiler.isolates.get(i);
+    kidsDidWork = new boolean[nodeCount];
+
+    enteredAt = new long[nodeCount];
+    calls = new long[nodeCount];
+    skips = new long[nodeCount];
+    selfNanos = new long[nodeCount];
+    maxSelfNanos = new long[nodeCount];
+    inclusiveNanos = new long[nodeCount];
+    maxInclusiveNanos = new long[nodeCount];
+
+    stepNodes = toArray(compiler.stepNodes);
+    stepTypes = toArray(compiler.stepTypes);
+
+    compiler.groupStarts.add(compiler.voiceNodes.size());
+    groupStarts = toArray(compiler.groupStarts);
+    groupParents = toArray(compiler.groupParents);
+    groupEnds = toArray(compiler.groupEnds);
+    voiceNodes = toArray(compiler.voiceNodes);
+    voiceFirstSteps = toArray(compiler.voiceFirstSteps);
+    voiceEndSteps = toArray(compiler.voiceEndSteps);
+    voiceDidWork = new boolean[voiceNodes.length];
+    sounding = new int[voiceNodes.length];
+    voiceOf = new int[nodeCount];
+    Arrays.fill(voiceOf, -1);
+    for (int v = 0; v < voiceNodes.length; v++)
+      voiceOf[voiceNodes[v]] = v;
+
+    buffers = new float[compiler.bufferLanes.size()][];
+    for (int i = 1; i < buffers.length; i++)
+      buffers[i] = arena.get(compiler.bufferLanes.get(i), compiler.bufferLevels.get(i));
+    dirty = new boolean[buffers.length];
+  }
+
+  /**
+   * Compile everything chucked to root. Root itself is not part of the plan;
+   * rendering the plan is equivalent to root rendering its kids.
+   * Everything in the plan is prepared with root's config.
+   * Scratch space comes from a new arena of our own. See the other compile() to share one.
+   */
+  public static RenderPlan compile(UGen root) {
+    return compile(root, new ScratchArena(root.getConfig()));
+  }
+  // Plans compiled from the same arena share scratch buffers, so only render one of them at a time
+  public static RenderPlan compile(UGen root, ScratchArena arena) {
+    if (arena.getBlockSize() != root.getConfig().getBlockSize())
+      throw new IllegalArgumentException("Scratch arena is for " + arena.getBlockSize() + " frame blocks, not " + root.getConfig().getBlockSize());
+
+    // Grab the version first so that a concurrent chuck leaves us stale rather than silently wrong
+    final int version = UGen.getGraphVersion();
+    final AudioConfig config = root.getConfig();
+
+    Compiler compiler = new Compiler(config);
+    final UGen[] kids = root.kids;
+    for (int k = 0; k < kids.length; k++)
+      compiler.add(kids[k], -1, 0, 0);
+
+    return new RenderPlan(version, config, arena, compiler);
+  }
+
+  public boolean isStale() {
+    return version != UGen.getGraphVersion();
+  }
+
+  public AudioConfig getConfig() {
+    return config;
+  }
+
+  // How many voices are laid out to be rendered in parallel
+  public int getVoiceCount() {
+    return voiceNodes.length;
+  }
+
+  public int getNodeCount() {
+    return ugens.length;
+  }
+
+  public UGen getUGen(int node) {
+    return ugens[node];
+  }
+  // How many ancestors a node has in the plan. Top level nodes are 0.
+  public int getDepth(int node) {
+    int depth = 0;
+    for (int parent = parents[node]; parent >= 0; parent = parents[parent])
+      depth++;
+    return depth;
+  }
+
+  public long getCalls(int node) {
+    return calls[node];
+  }
+  // How many times the node was quiet and skipped (see UGen.isQuiet). These aren't counted as calls.
+  public long getSkips(int node) {
+    return skips[node];
+  }
+  public long getSelfNanos(int node) {
+    return selfNanos[node];
+  }
+  public long getMaxSelfNanos(int node) {
+    return maxSelfNanos[node];
+  }
+  public long getInclusiveNanos(int node) {
+    return inclusiveNanos[node];
+  }
+  public long getMaxInclusiveNanos(int node) {
+    return maxInclusiveNanos[node];
+  }
+
+  // Only call from the thread that renders us
+  void resetTimings() {
+    for (int node = 0; node < ugens.length; node++) {
+      calls[node] = 0;
+      skips[node] = 0;
+      selfNanos[node] = 0;
+      maxSelfNanos[node] = 0;
+      inclusiveNanos[node] = 0;
+      maxInclusiveNanos[node] = 0;
+    }
+  }
+
+  // Fill a block of buffer and return true if any top level node did work
+  public boolean render(final float[] buffer) {
+    return render(buffer, 0, config.getBlockSize(), false);
+  }
+
+  // Only the samples from offset up to offset + length, which should be silent to begin with (the Dac clears them).
+  // If timed, we also keep track of how long every node takes
+  public boolean render(final float[] buffer, final int offset, final int length, final boolean timed) {
+    return render(buffer, offset, length, timed, null, 0);
+  }
+
+  /**
+   * Same, but groups with at least minParallelVoices voices sounding are spread over workers.
+   * The output doesn't depend on whether (or how) they were.
+   */
+  public boolean render(final float[] buffer, final int offset, final int length, final boolean timed,
+      final RenderWorkers workers, final int minParallelVoices) {
+    buffers[0] = buffer;
+    dirty[0] = false;
+    topLevelDidWork = false;
+
+    int step = 0;
+    while (step < stepNodes.length) {
+      if (stepTypes[step] == GROUP) {
+        final int group = stepNodes[step];
+        renderGroup(group, offset, length, timed, workers, minParallelVoices);
+        step = groupEnds[group];
+      } else {
+        step = renderStep(step, offset, length, timed);
+      }
+    }
+
+    return topLevelDidWork;
+  }
+
+  /**
+   * One ENTER or PROCESS step. Returns the step to do next.
+   * Steps of different voices only touch their own nodes and their own lane of buffers,
+   * so this may be called for different voices on different threads at once.
+   */
+  private int renderStep(final int step, final int offset, final int length, final boolean timed) {
+    final int node = stepNodes[step];
+    final UGen ugen = ugens[node];
+
+    if (stepTypes[step] == ENTER) {
+      if (timed)
+        enteredAt[node] = System.nanoTime();
+
+      kidsDidWork[node] = false;
+      if (isolates[node]) {
+        DspKernels.clear(buffers[inputs[node]], offset, length);
+        dirty[inputs[node]] = false;
+      }
+
+      if (! ugen.shouldRenderKids())
+        // Jump straight to our own PROCESS step
+        return processSteps[node];
+
+      ugen.kidsWillRender(offset, length);
+      return step + 1;
+    }
+
+    // Nothing coming in and nothing left ringing, so there's nothing to add
+    boolean nodeDidWork = false;
+    if (! dirty[inputs[node]] && ugen.isQuiet()) {
+      if (timed) {
+        enteredAt[node] = 0;
+        skips[node]++;
+      }
+    } else {
+      final long start = timed ? System.nanoTime() : 0;
+
+      nodeDidWork = ugen.process(buffers[inputs[node]], buffers[outputs[node]], offset, length, kidsDidWork[node]);
+
+      if (timed)
+        recordTiming(node, start, System.nanoTime());
+
+      if (nodeDidWork)
+        dirty[outputs[node]] = true;
+    }
+
+    // Voices report to their group, which mixes them into their parent
+    final int voice = voiceOf[node],
+              parent = parents[node];
+    if (voice >= 0)
+      voiceDidWork[voice] = nodeDidWork;
+    else if (parent >= 0)
+      kidsDidWork[parent] |= nodeDidWork;
+    else
+      topLevelDidWork |= nodeDidWork;
+
+    return step + 1;
+  }
+
+  private void renderGroup(final int group, final int offset, final int length, final boolean timed,
+      final RenderWorkers workers, final int minParallelVoices) {
+    // Released voices that have rung out would only clear their buffers and skip themselves, so leave them be
+    int count = 0;
+    for (int v = groupStarts[group]; v < groupStarts[group + 1]; v++) {
+      final UGen voice = ugens[voiceNodes[v]];
+      voiceDidWork[v] = false;
+
+      if (! voice.shouldRenderKids() && voice.isQuiet()) {
+        if (timed)
+          skips[voiceNodes[v]]++;
+        continue;
+      }
+      sounding[count++] = v;
+    }
+
+    if (workers != null && count > 1 && count >= minParallelVoices) {
+      voiceTask.offset = offset;
+      voiceTask.length = length;
+      voiceTask.timed = timed;
+      workers.run(voiceTask, count);
+    } else {
+      for (int i = 0; i < count; i++)
+        renderVoice(sounding[i], offset, length, timed);
+    }
+
+    // Always in graph order, whoever finished first
+    final int parent = groupParents[group],
+              input = inputs[parent];
+    final float[] mix = buffers[input];
+    for (int i = 0; i < count; i++) {
+      final int v = sounding[i];
+      if (! voiceDidWork[v])
+        continue;
+
+      DspKernels.mixAdd(mix, buffers[outputs[voiceNodes[v]]], offset, length);
+
+      dirty[input] = true;
+      kidsDidWork[parent] = true;
+    }
+  }
+
+  // A voice's whole subtree, into its own output buffer
+  private void renderVoice(final int voice, final int offset, final int length, final boolean timed) {
+    DspKernels.clear(buffers[outputs[voiceNodes[voice]]], offset, length);
+
+    int step = voiceFirstSteps[voice];
+    final int end = voiceEndSteps[voice];
+    while (step < end)
+      step = renderStep(step, offset, length, timed);
+  }
+
+  private final class VoiceTask implements RenderWorkers.Task {
+    int offset, length;
+    boolean timed;
+
+    public void run(int index) {
+      renderVoice(sounding[index], offset, length, timed);
+    }
+  }
+
+  private void recordTiming(final int node, final long start, final long end) {
+    final long self = end - start,
+               inclusive = end - ((enteredAt[node] != 0) ? enteredAt[node] : start);
+    enteredAt[node] = 0;
+
+    calls[node]++;
+    selfNanos[node] += self;
+    inclusiveNanos[node] += inclusive;
+    if (self > maxSelfNanos[node])
+      maxSelfNanos[node] = self;
+    if (inclusive > maxInclusiveNanos[node])
+      maxInclusiveNanos[node] = inclusive;
+  }
+
+  private static int[] toArray(ArrayList<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++)
+      array[i] = list.get(i);
+    return array;
+  }
+
+  /**
+   * Depth first walk of the graph. Scratch buffers are assigned by how many isolating
+   * ancestors a node has, so siblings (which render one after another) share them.
+   * Voices in a group each get a lane of their own instead, since they may render at the same time.
+   */
+  private static class Compiler {
+    final ArrayList<UGen> ugens = new ArrayList<UGen>();
+    final ArrayList<Integer> parents = new ArrayList<Integer>(),
+                             inputs = new ArrayList<Integer>(),
+                             outputs = new ArrayList<Integer>(),
+                             processSteps = new ArrayList<Integer>(),
+                             stepNodes = new ArrayList<Integer>(),
+                             stepTypes = new ArrayList<Integer>(),
+                             groupStarts = new ArrayList<Integer>(),
+                             groupParents = new ArrayList<Integer>(),
+                             groupEnds = new ArrayList<Integer>(),
+                             voiceNodes = new ArrayList<Integer>(),
+                             voiceFirstSteps = new ArrayList<Integer>(),
+                             voiceEndSteps = new ArrayList<Integer>();
+    final ArrayList<Boolean> isolates = new ArrayList<Boolean>();
+    // The lane and level of each of the plan's buffers. The first is lane 0, level 0: whatever we're asked to render into.
+    final ArrayList<Integer> bufferLanes = new ArrayList<Integer>(),
+                             bufferLevels = new ArrayList<Integer>();
+    final HashMap<Long, Integer> bufferIndexes = new HashMap<Long, Integer>();
+    final AudioConfig config;
+    int lanes = 1;
+
+    Compiler(AudioConfig config) {
+      this.config = config;
+      buffer(0, 0);
+    }
+
+    int buffer(int lane, int level) {
+      final Long key = ((long) lane << 32) | level;
+      Integer index = bufferIndexes.get(key);
+      if (index == null) {
+        index = bufferLanes.size();
+        bufferLanes.add(lane);
+        bufferLevels.add(level);
+        bufferIndexes.put(key, index);
+      }
+      return index;
+    }
+
+    // level is the level of the buffer we render into
+    void add(UGen ugen, int parent, int lane, int level) {
+      if (! config.equals(ugen.getConfig()))
+        ugen.prepare(config);
+
+      final int node = ugens.size();
+      final boolean isolate = ugen.isolatesKids();
+      final int inputLevel = isolate ? level + 1 : level;
+
+      ugens.add(ugen);
+      parents.add(parent);
+      inputs.add(buffer(lane, inputLevel));
+      outputs.add(buffer(lane, level));
+      processSteps.add(-1);
+      isolates.add(isolate);
+
+      // Read once. Someone may publish new kids while we're compiling, in which case we're stale anyway.
+      final UGen[] kids = ugen.kids;
+      if (isolate || kids.length > 0)
+        addStep(node, ENTER);
+
+      // Voices inside a voice are already on their own lane, so they just render in turn
+      if (lane == 0 && isGroup(kids)) {
+        final int group = groupParents.size();
+        groupStarts.add(voiceNodes.size());
+        groupParents.add(node);
+        addStep(group, GROUP);
+
+        for (int k = 0; k < kids.length; k++) {
+          voiceNodes.add(ugens.size());
+          voiceFirstSteps.add(stepNodes.size());
+          add(kids[k], node, lanes++, inputLevel);
+          voiceEndSteps.add(stepNodes.size());
+        }
+        groupEnds.add(stepNodes.size());
+      } else {
+        for (int k = 0; k < kids.length; k++)
+          add(kids[k], node, lane, inputLevel);
+      }
+
+      processSteps.set(node, stepNodes.size());
+      addStep(node, PROCESS);
+    }
+
+    // More than one kid, and every one of them a voice
+    static boolean isGroup(UGen[] kids) {
+      if (kids.length < 2)
+        return false;
+
+      for (int k = 0; k < kids.length; k++) {
+        if (! kids[k].isolatesKids() || ! kids[k].isAdditive())
+          return false;
+      }
+      return true;
+    }
+
+    void addStep(int node, int type) {
+      stepNodes.add(node);
+      stepTypes.add(type);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A fixed pool of threads that help the audio thread render voices (see RenderPlan).
+ *
+ * The audio thread hands over a batch of tasks (one per voice) with run() and works on them itself too,
+ * so nothing waits on a worker that hasn't been scheduled yet: whoever gets to a task first takes it.
+ * run() returns once every task is done. Between batches workers spin briefly in case the next one
+ * is right behind (the Dac may split a block at an event) and then park until they're handed more.
+ * Nothing here locks or allocates.
+ *
+ * Only one thread (the audio thread) may call run(), and only one batch runs at a time.
+ */
+public final class RenderWorkers {
+  public interface Task {
+    // Called on some thread with every index from 0 up to the count passed to run(), once each
+    public void run(int index);
+  }
+
+  // How many times to check for work before parking. A few microseconds.
+  private static final int SPINS = 2000;
+
+  private final Thread[] threads;
+  private volatile boolean running = true;
+
+  // The current batch. Only written while the cursor says it's closed, and only trusted by whoever
+  // read them after seeing it open (see takeTasks).
+  private volatile Task task;
+  private volatile int count;
+  // Batch number in the high half, next index to hand out in the low half (CLOSED while the batch is
+  // being set up). Claiming an index is a compare and set on both, so a worker still finishing the
+  // last batch can't take from this one.
+  private final AtomicLong cursor = new AtomicLong();
+  private static final int CLOSED = -1;
+  private final AtomicInteger remaining = new AtomicInteger();
+  private volatile Thread waiter;
+  private volatile RuntimeException failure;
+
+  // 1 while a worker is (about to be) parked, so run() knows who needs waking
+  private final AtomicIntegerArray parked;
+
+  public RenderWorkers(int threadCount) {
+    threads = new Thread[threadCount];
+    parked = new AtomicIntegerArray(threadCount);
+
+    for (int i = 0; i < threadCount; i++) {
+      final int id = i;
+      threads[i] = new Thread(new Runnable() {
+        public void run() {
+          work(id);
+        }
+      }, "RenderWorker-" + i);
+      threads[i].setDaemon(true);
+      threads[i].setPriority(Thread.MAX_PRIORITY);
+      threads[i].start();
+    }
+  }
+
+  // A worker for every core we don't already have a busy thread on (the audio thread and the UI)
+  public static int getDefaultThreadCount() {
+    return Math.max(0, Runtime.getRuntime().availableProcessors() - 2);
+  }
+
+  public int getThreadCount() {
+    return threads.length;
+  }
+
+  /**
+   * Run task for indexes 0 up to count across the workers and the calling thread.
+   * Returns once they've all finished. If any of them threw, that's rethrown here.
+   */
+  public void run(Task task, int count) {
+    // Move everyone on to the new batch before touching its fields, and only open it once they're set.
+    // Anyone late for the last batch can no longer claim from it, and nobody claims from this one early.
+    final int batch = batchOf(cursor.get()) + 1;
+    cursor.set(((long) batch << 32) | (CLOSED & 0xFFFFFFFFL));
+
+    this.task = task;
+    this.count = count;
+    failure = null;
+    remaining.set(count);
+    waiter = Thread.currentThread();
+
+    cursor.set((long) batch << 32);
+
+    for (int i = 0; i < threads.length; i++) {
+      if (parked.get(i) != 0)
+        LockSupport.unpark(threads[i]);
+    }
+
+    takeTasks(batch);
+
+    int spins = 0;
+    while (remaining.get() > 0) {
+      if (spins < SPINS)
+        spins++;
+      else
+        LockSupport.park(this);
+    }
+
+    final RuntimeException failure = this.failure;
+    if (failure != null)
+      throw failure;
+  }
+
+  private static int batchOf(long cursor) {
+    return (int) (cursor >>> 32);
+  }
+
+  private void takeTasks(final int batch) {
+    while (true) {
+      final long current = cursor.get();
+      if (batchOf(current) != batch)
+        return;
+
+      final int index = (int) current;
+      // Still being set up. Only for a few writes.
+      if (index == CLOSED)
+        continue;
+
+      // Read after seeing this batch open, so they're its own. If a newer batch has been set up
+      // since, the cursor has moved on with it and our claim fails.
+      final Task task = this.task;
+      final int count = this.count;
+      if (index >= count)
+        return;
+      if (! cursor.compareAndSet(current, current + 1))
+        continue;
+
+      try {
+        task.run(index);
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+
+      if (remaining.decrementAndGet() == 0)
+        LockSupport.unpark(waiter);
+    }
+  }
+
+  private void work(int id) {
+    int seen = batchOf(cursor.get());
+    while (running) {
+      int spins = 0;
+      while (batchOf(cursor.get()) == seen && running) {
+        if (spins < SPINS) {
+          spins++;
+          continue;
+        }
+
+        parked.set(id, 1);
+        // Checked again after saying we're parked, so a batch published in between isn't missed
+        if (batchOf(cursor.get()) == seen && running)
+          LockSupport.park(this);
+        parked.set(id, 0);
+      }
+
+      seen = batchOf(cursor.get());
+      takeTasks(seen);
+    }
+  }
+
+  // Let the threads go. Any batch in progress still finishes.
+  public void shutdown() {
+    running = false;
+    for (int i = 0; i < threads.length; i++)
+      LockSupport.unpark(threads[i]);
+  }
+}
@@ -0,0 +1,57 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.Arrays;
+
+/**
+ * Block sized scratch buffers for everything one engine renders.
+ *
+ * UGens that need somewhere to put samples before they're mixed (e.g. a ComplexOsc summing its components
+ * on their own) get it from here instead of allocating on the audio thread. Buffers are handed out by level:
+ * level n is for anything nested n isolating UGens deep, so siblings (which render one after another)
+ * share them and the whole graph needs only as many as it is deep. Voices that may render at the same time
+ * (on RenderWorkers) can't share, so each of them gets a lane of levels of its own. Lane 0 is everything else.
+ *
+ * Every RenderPlan a Dac compiles draws from the Dac's arena, so recompiling after a graph edit reuses
+ * the same buffers rather than allocating a fresh set. That's safe because only one plan renders at a time.
+ * Buffers are only ever created here (on whichever thread compiles), never while rendering.
+ */
+public final class ScratchArena {
+  private final int blockSize;
+
+  // Indexed by lane, then level. Guarded by this. Grows as more are asked for and never shrinks.
+  private float[][][] lanes = new float[1][][];
+  private int allocated = 0;
+
+  public ScratchArena(AudioConfig config) {
+    this.blockSize = config.getBlockSize();
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  // The buffer for this level (starting at 1; level 0 is whatever the plan is asked to render into)
+  public float[] get(int level) {
+    return get(0, level);
+  }
+  public synchronized float[] get(int lane, int level) {
+    if (lane >= lanes.length)
+      lanes = Arrays.copyOf(lanes, Math.max(lane + 1, lanes.length * 2));
+    if (lanes[lane] == null)
+      lanes[lane] = new float[4][];
+    if (level >= lanes[lane].length)
+      lanes[lane] = Arrays.copyOf(lanes[lane], Math.max(level + 1, lanes[lane].length * 2));
+
+    if (lanes[lane][level] == null) {
+      lanes[lane][level] = new float[blockSize];
+      allocated++;
+    }
+
+    return lanes[lane][level];
+  }
+
+  // How many buffers we've made so far
+  public synchronized int getAllocated() {
+    return allocated;
+  }
+}
@@ -0,0 +1,200 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Unit Generator. 
+ * I am the basic class for anything that makes noise
+ */
+public abstract class UGen implements Serializable {
+	// Our sample rate and block size. Set by prepare() before we're rendered as part of a graph.
+	// Plans are published to the audio thread after preparing, so this needn't be volatile.
+	protected AudioConfig config = AudioConfig.DEFAULT;
+
+	// Anything quieter than this rounds to nothing at 16 bits. See isQuiet.
+	public static final float SILENCE = 1f / Short.MAX_VALUE;
+
+	// Written on the audio thread (e.g. envelopes finishing), read by the UI when picking voices
+	private volatile boolean isPlaying = false;
+	
+	private static final UGen[] NO_KIDS = new UGen[0];
+
+	// Where our kids render when we isolate them and are rendered on our own (outside a RenderPlan).
+	// Made the first time it's needed, so that's the only render that allocates.
+	private transient float[] kidsScratch;
+
+	// Copy-on-write. Graph edits build a new array and publish it with a single volatile write,
+	// so the audio thread can read kids without locking and never sees a half-edited list.
+	volatile UGen[] kids = NO_KIDS;
+
+	// Bumped every time any UGen is chucked or unchucked so compiled RenderPlans know when they're stale
+	private static final AtomicInteger graphVersion = new AtomicInteger();
+
+	// Only graph edits take this. Rendering never does.
+	private static final Object graphLock = new Object();
+
+	// fill a block (config.getBlockSize() samples)
+	// and return true if you actually did any work.
+	// The audio thread renders through a compiled RenderPlan instead. This recursive version
+	// is here for one-off renders of UGens that live outside the graph (e.g. a ComplexOsc's delay)
+	public boolean render(final float[] buffer) {
+		return render(buffer, 0, config.getBlockSize());
+	}
+	// Same, but only the samples from offset up to offset + length
+	public boolean render(final float[] buffer, final int offset, final int length) {
+		float[] input = buffer;
+		if (isolatesKids()) {
+			input = kidsScratch;
+			if (input == null || input.length != config.getBlockSize())
+				input = kidsScratch = new float[config.getBlockSize()];
+
+			DspKernels.clear(input, offset, length);
+		}
+
+		boolean kidsDidWork = false;
+		if (shouldRenderKids()) {
+			kidsWillRender(offset, length);
+			kidsDidWork = renderKids(input, offset, length);
+		}
+		// Otherwise whatever was already in buffer is our input too
+		if (isolatesKids() && ! kidsDidWork && isQuiet())
+			return false;
+
+		return process(input, buffer, offset, length, kidsDidWork);
+	}
+
+	// Do our own work once our kids have rendered into input.
+	// input is the same array as output unless we isolate our kids.
+	// Only touch samples offset up to offset + length. The Dac splits blocks wherever an event lands
+	// (see ParameterQueue) so anything you do once per block should scale with config.toReferenceBlocks(length).
+	// Return true if you actually did any work, i.e. you may have added sound to output.
+	// Returning false promises output is as you found it, which is what lets quiet UGens be skipped (see isQuiet).
+	abstract protected boolean process(final float[] input, final float[] output, final int offset, final int length, boolean kidsDidWork);
+
+	/**
+	 * Change one of our parameters. Param ids are up to each UGen (see e.g. ComplexOsc.FREQUENCY).
+	 * From another thread, post this through the Dac's ParameterQueue instead of calling it directly
+	 * so it lands on the audio thread, in between the samples it was meant for.
+	 */
+	public void setParameter(int param, float value) {
+	}
+
+	/**
+	 * Get ready to render with this config. Anything derived from the sample rate or block size
+	 * (coefficients, delay lines, scratch buffers) should be worked out again here.
+	 * RenderPlans call this on every UGen they compile, and anyone holding UGens outside the graph
+	 * should pass it along. Override and call super.
+	 */
+	public void prepare(AudioConfig config) {
+		this.config = config;
+	}
+	public AudioConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * Whether we'd add nothing if our input is silent: none of our own sound and no tail still ringing
+	 * (echoes in a delay line, a filter settling). When this is true and nothing has been written to our input
+	 * (by our kids, or by whoever rendered into the same buffer before us), process() is skipped entirely,
+	 * so only say so if skipping us changes nothing.
+	 * A skipped UGen picks up again as soon as there's input. Checked on the audio thread before every process().
+	 */
+	public boolean isQuiet() {
+		return false;
+	}
+
+	/**
+	 * Whether all we do to output is add our own sound to it, never reading what's already there.
+	 * Along with isolatesKids, this makes us a voice: a RenderPlan may render us into a buffer of our own
+	 * (possibly on another thread) and add that in afterwards, which comes out exactly the same.
+	 */
+	public boolean isAdditive() {
+		return false;
+	}
+
+	// If true, our kids render into a cleared buffer of their own instead of on top of our output
+	protected boolean isolatesKids() {
+		return false;
+	}
+	// Checked every chunk. Return false to skip rendering our kids entirely
+	protected boolean shouldRenderKids() {
+		return true;
+	}
+	// Called right before our kids render the samples from offset up to offset + length, on the same thread.
+	// Anything they share that has to be worked out first for those samples (e.g. a voice's Modulation) goes here.
+	protected void kidsWillRender(final int offset, final int length) {
+	}
+
+	final public UGen chuck(UGen that) {
+		synchronized(graphLock) {
+			final UGen[] oldKids = that.kids;
+			if(indexOf(oldKids, this) == -1) {
+				final UGen[] newKids = new UGen[oldKids.length + 1];
+				System.arraycopy(oldKids, 0, newKids, 0, oldKids.length);
+				newKids[oldKids.length] = this;
+
+				that.kids = newKids;
+				graphVersion.incrementAndGet();
+			}
+		}
+		return that; // returns RHS
+	}
+	
+	final public UGen unchuck(UGen that) {		
+		synchronized(graphLock) {
+			final UGen[] oldKids = that.kids;
+			final int index = indexOf(oldKids, this);
+			if(index != -1) {
+				final UGen[] newKids = new UGen[oldKids.length - 1];
+				System.arraycopy(oldKids, 0, newKids, 0, index);
+				System.arraycopy(oldKids, index + 1, newKids, index, newKids.length - index);
+
+				that.kids = newKids;
+				graphVersion.incrementAndGet();
+			}
+		}
+		return that; // returns RHS
+	}
+
+	private static int indexOf(final UGen[] ugens, final UGen ugen) {
+		for(int i = 0; i < ugens.length; i++) {
+			if(ugens[i] == ugen) return i;
+		}
+		return -1;
+	}
+
+	static int getGraphVersion() {
+		return graphVersion.get();
+	}
+	
+	protected void zeroBuffer(final float[] buffer) {
+		DspKernels.clear(buffer, 0, config.getBlockSize());
+	}
+
+  public void togglePlayback() {
+    setPlaying(!isPlaying());
+  }
+  public boolean isPlaying() {
+    return isPlaying;
+  }
+  public void setPlaying(boolean isPlaying) {
+    this.isPlaying = isPlaying;
+  }
+
+  public void stop() {
+    setPlaying(false);
+  }
+  public void start() {
+    setPlaying(true);
+  }
+
+	protected boolean renderKids(final float[] buffer, final int offset, final int length) {
+		boolean didSomeRealWork = false;
+		final UGen[] kids = this.kids;
+		for(int k = 0; k < kids.length; k++) {
+			didSomeRealWork |= kids[k].render(buffer, offset, length);
+		}
+		return didSomeRealWork;
+	}
+}
@@ -0,0 +1,162 @@
+package com.mattfeury.saucillator.dev.android.sound;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.mattfeury.saucillator.dev.android.instruments.ComplexOsc;
+
+/**
+ * A fixed set of voices for the current instrument.
+ *
+ * The voices are built (and chucked into the graph) once when an instrument loads.
+ * Fingers borrow one on touch down and hand it back on touch up, so a touch never has to
+ * copy an instrument or allocate. A returned voice keeps sounding through its release
+ * until someone else needs it. Voices tell us (from the audio thread) when their release has run out,
+ * which is how we know which ones are truly silent: a voice that isn't playing yet may only be
+ * waiting on the note it was just handed out for.
+ *
+ * When every voice is taken, one is stolen according to the StealPolicy.
+ * This is only meant to be used from the UI thread.
+ */
+public class VoicePool {
+  public enum StealPolicy { OLDEST, QUIETEST }
+
+  private static final int FREE = -1;
+
+  private final ComplexOsc[] voices;
+  private final int[] fingerIds; // the finger holding each voice, or FREE
+  private final long[] acquiredAt; // when each voice was last handed out
+  private long clock = 0;
+  // 1 once a voice has finished releasing, 0 from when it's handed out again. Set on the audio thread.
+  private final AtomicIntegerArray idle;
+
+  private final ComplexOsc.VoiceListener listener = new ComplexOsc.VoiceListener() {
+    public void voiceFinished(ComplexOsc voice) {
+      final int index = indexOf(voice);
+      if (index != -1)
+        idle.set(index, 1);
+    }
+  };
+
+  private StealPolicy stealPolicy;
+
+  public VoicePool(ComplexOsc[] voices, StealPolicy stealPolicy) {
+    this.voices = voices;
+    this.stealPolicy = stealPolicy;
+
+    fingerIds = new int[voices.length];
+    acquiredAt = new long[voices.length];
+    idle = new AtomicIntegerArray(voices.length);
+    for (int i = 0; i < voices.length; i++) {
+      fingerIds[i] = FREE;
+      idle.set(i, 1);
+      voices[i].setVoiceListener(listener);
+    }
+  }
+
+  public ComplexOsc[] getVoices() {
+    return voices;
+  }
+  public int size() {
+    return voices.length;
+  }
+
+  public StealPolicy getStealPolicy() {
+    return stealPolicy;
+  }
+  public void setStealPolicy(StealPolicy stealPolicy) {
+    this.stealPolicy = stealPolicy;
+  }
+
+  /**
+   * The voice held by this finger, or null if it doesn't have one
+   */
+  public ComplexOsc get(int fingerId) {
+    int index = indexOf(fingerId);
+    return (index != -1) ? voices[index] : null;
+  }
+
+  /**
+   * Hand this finger a voice. It gets the one it already has, then a silent free voice,
+   * then a free voice that is still releasing, then one whose note ran out while a finger held it,
+   * and as a last resort one stolen from another finger.
+   */
+  public ComplexOsc acquire(int fingerId) {
+    int index = indexOf(fingerId);
+    if (index != -1)
+      return voices[index];
+
+    index = pick(true, true);
+    if (index == -1)
+      index = pick(true, false);
+    if (index == -1)
+      index = pick(false, true);
+    if (index == -1)
+      index = pick(false, false);
+    if (index == -1)
+      return null;
+
+    fingerIds[index] = fingerId;
+    acquiredAt[index] = ++clock;
+    idle.set(index, 0);
+    return voices[index];
+  }
+
+  public void release(int fingerId) {
+    int index = indexOf(fingerId);
+    if (index != -1)
+      fingerIds[index] = FREE;
+  }
+
+  public void releaseAll() {
+    for (int i = 0; i < fingerIds.length; i++)
+      fingerIds[i] = FREE;
+  }
+
+  private int indexOf(int fingerId) {
+    for (int i = 0; i < fingerIds.length; i++)
+      if (fingerIds[i] == fingerId)
+        return i;
+
+    return -1;
+  }
+  private int indexOf(ComplexOsc voice) {
+    for (int i = 0; i < voices.length; i++)
+      if (voices[i] == voice)
+        return i;
+
+    return -1;
+  }
+
+  // Whether this voice has finished and nothing has been asked of it since
+  public boolean isIdle(int index) {
+    return idle.get(index) != 0 && ! voices[index].isPlaying();
+  }
+
+  // Best candidate according to our StealPolicy, optionally limited to free and/or silent voices
+  private int pick(boolean onlyFree, boolean onlySilent) {
+    int best = -1;
+    for (int i = 0; i < voices.length; i++) {
+      if (onlyFree && fingerIds[i] != FREE)
+        continue;
+      if (onlySilent && ! isIdle(i))
+        continue;
+
+      if (best == -1 || isBetterVictim(i, best))
+        best = i;
+    }
+
+    return best;
+  }
+
+  private boolean isBetterVictim(int candidate, int best) {
+    if (stealPolicy == StealPolicy.QUIETEST) {
+      float candidateLevel = voices[candidate].getCurrentAmplitude(),
+            bestLevel = voices[best].getCurrentAmplitude();
+
+      if (candidateLevel != bestLevel)
+        return candidateLevel < bestLevel;
+    }
+
+    return acquiredAt[candidate] < acquiredAt[best];
+  }
+}
@@ -2,10 +2,6 @@ package com.mattfeury.saucillator.dev.android.sound;
 
 import java.io.*;
 
-import com.mattfeury.saucillator.dev.android.services.InstrumentService;
-
-import android.util.Log;
-
 /**
  * Writes a wave file
  */
@@ -15,6 +11,8 @@ public class WavWriter {
   static ByteArrayOutputStream data = new ByteArrayOutputStream();
   private static File lastFile = null;
   public static String filePrefix = "Recording";
+  // Where recordings are saved. The app points this at its data folder.
+  public static File directory = new File(".");
 
   public static File getLastFile(){
     return lastFile;
@@ -35,11 +33,15 @@ public class WavWriter {
     try{
       writeWav(data.toByteArray());
     } catch(IOException e){
-      Log.e("blow", "blew it : " + e.toString());  	
+      e.printStackTrace();
     }
   }
 
-  private static int sampleRate = UGen.SAMPLE_RATE;
+  private static int sampleRate = AudioConfig.DEFAULT_SAMPLE_RATE;
+  // Whatever the recording Dac runs at
+  static void setSampleRate(int rate) {
+    sampleRate = rate;
+  }
   private static int numChannels = 1;
   private static int bitDepth = 16;
   static void writeWav(byte[] buffer) throws IOException{
@@ -48,17 +50,33 @@ public class WavWriter {
     File file;
     int i = 0;
     
-    if (! InstrumentService.ensureProperDirectoryStructure())
+    if (! directory.exists() && ! directory.mkdirs())
       return;
     
     do{
     	i++;
-    	file = new File(InstrumentService.dataPath + filePrefix + i + ".wav");
+    	file = new File(directory, filePrefix + i + ".wav");
     }while(file.exists());
     
     DataOutputStream outFile  = new DataOutputStream(new FileOutputStream(file));
     
-    // write the header
+    writeHeader(outFile, numSamples, sampleRate);
+    outFile.write(buffer);
+
+    // save
+    outFile.flush();
+    outFile.close();
+    
+    clear();
+
+    lastFile = file;
+    numWavFiles++;
+	}
+
+  /**
+   * Write a 44 byte wav header for this many 16 bit mono samples. The data itself goes right after.
+   */
+  public static void writeHeader(DataOutput outFile, int numSamples, int sampleRate) throws IOException {
     outFile.writeBytes("RIFF");
     outFile.write(intToByteArray((int)(numSamples * numChannels * bitDepth / 8 + 36)), 0, 4);
     outFile.writeBytes("WAVE");
@@ -71,20 +89,9 @@ public class WavWriter {
     outFile.write(shortToByteArray((short)(numChannels * bitDepth / 8)), 0, 2);
     outFile.write(shortToByteArray((short)bitDepth), 0, 2);
 
-    // write the data
     outFile.writeBytes("data");
     outFile.write(intToByteArray((int)numSamples * numChannels * bitDepth / 8), 0, 4);
-    outFile.write(buffer);
-
-    // save
-    outFile.flush();
-    outFile.close();
-    
-    clear();
-
-    lastFile = file;
-    numWavFiles++;
-	}
+  }
 
   //===========================
   // CONVERT JAVA TYPES TO BYTES